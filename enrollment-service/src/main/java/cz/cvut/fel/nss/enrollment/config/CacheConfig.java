@@ -0,0 +1,40 @@
+package cz.cvut.fel.nss.enrollment.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import cz.cvut.fel.nss.enrollment.model.Enrollment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Enrollments of one student, keyed by username.
+     */
+    public static final String ENROLLMENTS = "enrollments";
+
+    /**
+     * Bounded cache whose entries weigh as much as the number of enrollments they hold and expire after a fixed time.
+     * Statistics are recorded so the cache is reported to Micrometer under cache.* metrics.
+     */
+    @Bean
+    public CacheManager cacheManager(@Value("${enrollment.cache.max-weight:100000}") long maxWeight,
+                                     @Value("${enrollment.cache.ttl-seconds:300}") long ttlSeconds) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(ENROLLMENTS);
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Object username, Object enrollments) -> 1 + (enrollments instanceof List<?> list ? list.size() : 0))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats());
+        return cacheManager;
+    }
+}
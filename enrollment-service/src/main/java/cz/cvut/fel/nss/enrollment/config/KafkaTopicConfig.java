@@ -0,0 +1,25 @@
+package cz.cvut.fel.nss.enrollment.config;
+
+import cz.cvut.fel.nss.enrollment.service.EnrollmentEventPublisher;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    /**
+     * Topic of enrollment changes, created on startup when missing. Changes of one student always go to one
+     * partition, so the number of partitions bounds how many consumers can process changes in parallel.
+     */
+    @Bean
+    public NewTopic enrollmentTopic(@Value("${enrollment.events.partitions:3}") int partitions,
+                                    @Value("${enrollment.events.replicas:1}") short replicas) {
+        return TopicBuilder.name(EnrollmentEventPublisher.ENROLLMENT_TOPIC)
+                .partitions(partitions)
+                .replicas(replicas)
+                .build();
+    }
+}
@@ -0,0 +1,46 @@
+package cz.cvut.fel.nss.enrollment.event;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import cz.cvut.fel.nss.enrollment.model.Enrollment;
+import cz.cvut.fel.nss.enrollment.utils.enums.EnrollmentChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Change of one enrollment, published on enrollmentTopic keyed by the username of the student.
+ * The revision grows with every change of the enrollment, the event ID is made of the enrollment ID and the revision,
+ * so a resent change keeps its ID and consumers can drop it as a duplicate.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EnrollmentChangedEvent {
+    private String eventId;
+    private EnrollmentChangeType type;
+    private String enrollmentId;
+    private long revision;
+    private String studentUsername;
+    private String course;
+    private String teacherName;
+    private Long parallelId;
+    private String semester;
+    private String grade;
+    private String status;
+
+    public static EnrollmentChangedEvent of(EnrollmentChangeType type, Enrollment enrollment, long revision) {
+        return new EnrollmentChangedEvent(
+                enrollment.getId() + ":" + revision,
+                type,
+                enrollment.getId(),
+                revision,
+                enrollment.getStudentUsername(),
+                enrollment.getCourse(),
+                enrollment.getTeacherName(),
+                enrollment.getParallelId(),
+                enrollment.getSemester(),
+                enrollment.getGrade() == null ? null : enrollment.getGrade().name(),
+                enrollment.getStatus() == null ? null : enrollment.getStatus().name());
+    }
+}
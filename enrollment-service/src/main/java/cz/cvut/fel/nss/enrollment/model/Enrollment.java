@@ -1,5 +1,6 @@
 package cz.cvut.fel.nss.enrollment.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import cz.cvut.fel.nss.enrollment.utils.enums.Grade;
 import cz.cvut.fel.nss.enrollment.utils.enums.Status;
 import jakarta.persistence.*;
@@ -7,33 +8,64 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
 
 @Getter
 @Setter
 @Data
-@Document(indexName = "enrollment")
+@Document(indexName = Enrollment.INDEX, createIndex = false)
 public class Enrollment {
+    /**
+     * Alias the application reads and writes through, pointing to the index of the current mapping version.
+     */
+    public static final String INDEX = "enrollment";
+
     @Id
     @GeneratedValue
     private String id;
 
+    @Field(type = FieldType.Keyword)
     private String course;
 
     @Enumerated(EnumType.STRING)
+    @Field(type = FieldType.Keyword)
     private Grade grade;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
+    @Field(type = FieldType.Keyword)
     private Status status;
 
+    @Field(type = FieldType.Keyword)
     private String teacherName;
 
+    @Field(type = FieldType.Keyword)
     private String studentUsername;
 
+    @Field(type = FieldType.Long)
     private Long parallelId;
 
+    @Field(type = FieldType.Keyword)
+    private String semester;
+
+    /**
+     * Number of changes made to the enrollment, starting at 1 when it is created.
+     */
+    @Field(type = FieldType.Long)
+    private long revision;
+
+    /**
+     * Sequence number and primary term the enrollment was read with, a save is rejected when the stored
+     * document has changed since.
+     */
+    @JsonIgnore
+    private SeqNoPrimaryTerm seqNoPrimaryTerm;
+
     public Enrollment() {
         this.status = Status.IN_PROGRESS;
+        this.revision = 1;
     }
 
     public void setGrade(Grade grade) {
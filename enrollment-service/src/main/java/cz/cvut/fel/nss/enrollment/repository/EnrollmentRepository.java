@@ -8,9 +8,10 @@ import java.util.List;
 import java.util.Optional;
 
 public interface EnrollmentRepository extends ElasticsearchRepository<Enrollment, Long> {
+    @Query("{\"bool\": {\"filter\": [{\"term\": {\"studentUsername\": \"?0\"}}]}}")
     List<Enrollment> findByStudentUsername(String username);
-    @Query("{\"bool\": {\"must\": [{\"match\": {\"studentUsername\": \"?0\"}}, {\"match\": {\"teacherName\": \"?1\"}}]}}")
+    @Query("{\"bool\": {\"filter\": [{\"term\": {\"studentUsername\": \"?0\"}}, {\"term\": {\"teacherName\": \"?1\"}}]}}")
     List<Enrollment> findByStudentUsernameAndTeacherName(String studentUsername, String teacherName);
-    @Query("{\"bool\": {\"must\": [{\"match\": {\"studentUsername\": \"?0\"}}, {\"match\": {\"parallelId\": \"?1\"}}]}}")
+    @Query("{\"bool\": {\"filter\": [{\"term\": {\"studentUsername\": \"?0\"}}, {\"term\": {\"parallelId\": ?1}}]}}")
     Optional<Enrollment> findByStudentUsernameAndParallelId(String studentUsername, Long parallelId);
 }
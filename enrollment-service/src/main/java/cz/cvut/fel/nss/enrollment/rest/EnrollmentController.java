@@ -1,30 +1,33 @@
 package cz.cvut.fel.nss.enrollment.rest;
 
 import cz.cvut.fel.nss.enrollment.model.Enrollment;
+import cz.cvut.fel.nss.enrollment.rest.dto.BulkEnrollmentRequest;
+import cz.cvut.fel.nss.enrollment.rest.dto.BulkItemResult;
 import cz.cvut.fel.nss.enrollment.rest.dto.EnrollmentRequest;
+import cz.cvut.fel.nss.enrollment.service.EnrollmentBulkService;
 import cz.cvut.fel.nss.enrollment.service.EnrollmentService;
+import cz.cvut.fel.nss.enrollment.utils.enums.Status;
 import cz.cvut.fel.nss.enrollment.utils.exceptions.EnrollmentException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/enrollment")
-@EnableCaching
 public class EnrollmentController {
 
     private EnrollmentService enrollmentService;
+    private EnrollmentBulkService enrollmentBulkService;
 
     @Autowired
-    public EnrollmentController(EnrollmentService enrollmentService) {
+    public EnrollmentController(EnrollmentService enrollmentService, EnrollmentBulkService enrollmentBulkService) {
         this.enrollmentService = enrollmentService;
+        this.enrollmentBulkService = enrollmentBulkService;
     }
 
     /**
@@ -33,7 +36,6 @@ public class EnrollmentController {
      * @param username The username of the student.
      * @return List of enrollments.
      */
-    @Cacheable(key = "#username", value = "enrollments")
     @GetMapping(value = "/{username}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<List<Enrollment>> getEnrollmentsByUsername(@PathVariable String username) {
         List<Enrollment> enrollments = enrollmentService.getEnrollmentsByUsername(username);
@@ -51,6 +53,22 @@ public class EnrollmentController {
         return new ResponseEntity<>(enrollments, HttpStatus.OK);
     }
 
+    /**
+     * Streams enrollments as newline-delimited JSON, chosen with Accept: application/x-ndjson.
+     *
+     * @param course   The code of the course to export, all courses if omitted.
+     * @param status   The status of enrollments to export, all statuses if omitted.
+     * @param semester The code of the semester to export, all semesters if omitted.
+     * @return Stream of enrollments, one per line.
+     */
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportEnrollments(@RequestParam(required = false) String course,
+                                                                   @RequestParam(required = false) Status status,
+                                                                   @RequestParam(required = false) String semester) {
+        StreamingResponseBody body = out -> enrollmentService.exportEnrollments(course, status, semester, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * Create enrollment by username.
      *
@@ -58,9 +76,20 @@ public class EnrollmentController {
      * @param enrollmentRequest The request body containing details to create a new enrollment.
      */
     @PostMapping(value = "/{username}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    @CacheEvict(value = "enrollments", key = "#username")
     public ResponseEntity<Void> createEnrollmentByUsername(@PathVariable String username, @RequestBody EnrollmentRequest enrollmentRequest) {
-        enrollmentService.createEnrollmentByUsername(username, enrollmentRequest.getCourse(), enrollmentRequest.getTeacherName(), enrollmentRequest.getParallelId());
+        enrollmentService.createEnrollmentByUsername(username, enrollmentRequest.getCourse(), enrollmentRequest.getTeacherName(), enrollmentRequest.getParallelId(), enrollmentRequest.getSemester());
+        return new ResponseEntity<>(HttpStatus.CREATED);
+    }
+
+    /**
+     * Create several enrollments of one student at once.
+     *
+     * @param username The username of the student.
+     * @param enrollmentRequests The request bodies containing details of the new enrollments.
+     */
+    @PostMapping(value = "/{username}/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> createEnrollmentsByUsername(@PathVariable String username, @RequestBody List<EnrollmentRequest> enrollmentRequests) {
+        enrollmentService.createEnrollmentsByUsername(username, enrollmentRequests);
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
@@ -71,7 +100,6 @@ public class EnrollmentController {
      * @param enrollmentRequest The request body containing details to grade a student.
      */
     @PostMapping(value = "/grade/{username}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    @CacheEvict(value = "enrollments", key = "#username")
     public ResponseEntity<Void> gradeStudentByUsername(@PathVariable String username, @RequestBody EnrollmentRequest enrollmentRequest) throws EnrollmentException {
         enrollmentService.gradeStudentByUsername(username, enrollmentRequest);
         return new ResponseEntity<>(HttpStatus.OK);
@@ -84,10 +112,42 @@ public class EnrollmentController {
      * @return Response entity.
      */
     @DeleteMapping(value = "/{username}/{parallelId}")
-    @CacheEvict(value = "enrollments", key = "#username")
     public ResponseEntity<Void> deleteEnrollmentsByUsername(@PathVariable String username, @PathVariable Long parallelId) throws EnrollmentException {
         enrollmentService.deleteEnrollmentByUsername(username, parallelId);
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    /**
+     * Create enrollments of many students in bulk.
+     *
+     * @param requests The enrollments to create, each with the username of its student.
+     * @return Result of every item.
+     */
+    @PostMapping(value = "/bulk/create", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BulkItemResult>> createEnrollmentsInBulk(@RequestBody List<BulkEnrollmentRequest> requests) {
+        return new ResponseEntity<>(enrollmentBulkService.createEnrollments(requests), HttpStatus.OK);
+    }
+
+    /**
+     * Grade enrollments of many students in bulk.
+     *
+     * @param requests The grades to set, each with the username of its student.
+     * @return Result of every item.
+     */
+    @PostMapping(value = "/bulk/grade", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BulkItemResult>> gradeEnrollmentsInBulk(@RequestBody List<BulkEnrollmentRequest> requests) {
+        return new ResponseEntity<>(enrollmentBulkService.gradeEnrollments(requests), HttpStatus.OK);
+    }
+
+    /**
+     * Remove enrollments of many students in bulk.
+     *
+     * @param requests The enrollments to remove, each with the username of its student and the parallel id.
+     * @return Result of every item.
+     */
+    @PostMapping(value = "/bulk/delete", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BulkItemResult>> deleteEnrollmentsInBulk(@RequestBody List<BulkEnrollmentRequest> requests) {
+        return new ResponseEntity<>(enrollmentBulkService.deleteEnrollments(requests), HttpStatus.OK);
+    }
+
 }
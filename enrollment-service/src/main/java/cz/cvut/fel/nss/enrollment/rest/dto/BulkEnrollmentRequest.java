@@ -0,0 +1,19 @@
+package cz.cvut.fel.nss.enrollment.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEnrollmentRequest {
+    private String studentUsername;
+    private String course;
+    private String teacherName;
+    private String grade;
+    private Long parallelId;
+    private String semester;
+}
@@ -0,0 +1,20 @@
+package cz.cvut.fel.nss.enrollment.rest.dto;
+
+import cz.cvut.fel.nss.enrollment.utils.enums.BulkItemStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResult {
+    private int index;
+    private String studentUsername;
+    private Long parallelId;
+    private String enrollmentId;
+    private BulkItemStatus status;
+    private String error;
+}
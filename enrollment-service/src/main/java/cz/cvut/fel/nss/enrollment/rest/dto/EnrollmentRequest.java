@@ -12,4 +12,5 @@ public class EnrollmentRequest {
     private String teacherName;
     private String grade;
     private Long parallelId;
+    private String semester;
 }
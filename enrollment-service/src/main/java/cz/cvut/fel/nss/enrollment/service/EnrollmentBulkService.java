@@ -0,0 +1,360 @@
+package cz.cvut.fel.nss.enrollment.service;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import cz.cvut.fel.nss.enrollment.model.Enrollment;
+import cz.cvut.fel.nss.enrollment.rest.dto.BulkEnrollmentRequest;
+import cz.cvut.fel.nss.enrollment.rest.dto.BulkItemResult;
+import cz.cvut.fel.nss.enrollment.utils.enums.BulkItemStatus;
+import cz.cvut.fel.nss.enrollment.utils.enums.EnrollmentChangeType;
+import cz.cvut.fel.nss.enrollment.utils.enums.Grade;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.query.BulkOptions;
+import org.springframework.data.elasticsearch.core.query.ByQueryResponse;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk writes of enrollments.
+ *
+ * Items are processed in chunks of a configurable size, each chunk being a single Elasticsearch bulk request.
+ * A failing item does not fail the others, every item gets its own result. Every item that succeeds evicts the
+ * cached enrollments of its student and publishes an enrollment change; an item whose change could not be published
+ * is reported as failed, so the caller retries it.
+ */
+@Service
+public class EnrollmentBulkService {
+
+    private static final String VERSION_CONFLICT = "version conflict";
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final EnrollmentCacheInvalidator cacheInvalidator;
+    private final EnrollmentEventPublisher eventPublisher;
+    private final int batchSize;
+    private final RefreshPolicy refreshPolicy;
+    private final int maxConflictRetries;
+
+    @Autowired
+    public EnrollmentBulkService(ElasticsearchOperations elasticsearchOperations,
+                                 EnrollmentCacheInvalidator cacheInvalidator,
+                                 EnrollmentEventPublisher eventPublisher,
+                                 @Value("${enrollment.bulk.batch-size:500}") int batchSize,
+                                 @Value("${enrollment.bulk.refresh-policy:WAIT_UNTIL}") RefreshPolicy refreshPolicy,
+                                 @Value("${enrollment.write.max-conflict-retries:3}") int maxConflictRetries) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.cacheInvalidator = cacheInvalidator;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.refreshPolicy = refreshPolicy;
+        this.maxConflictRetries = maxConflictRetries;
+    }
+
+    /**
+     * Creates enrollments in bulk.
+     * A student already enrolled in the parallel keeps the existing enrollment, its item is reported as created with
+     * the existing ID and its change event is published again, so a retried request does not create duplicates.
+     *
+     * @param requests The enrollments to create, each with the username of its student.
+     * @return Result of every item, in the order of the requests.
+     */
+    public List<BulkItemResult> createEnrollments(List<BulkEnrollmentRequest> requests) {
+        List<BulkItemResult> results = new ArrayList<>(requests.size());
+        Map<String, Enrollment> changed = new HashMap<>();
+        for (int from = 0; from < requests.size(); from += batchSize) {
+            List<BulkEnrollmentRequest> chunk = requests.subList(from, Math.min(from + batchSize, requests.size()));
+            Map<String, List<Enrollment>> enrollmentsByStudent = findEnrollmentsOfStudents(chunk);
+            List<IndexQuery> queries = new ArrayList<>();
+            List<BulkItemResult> indexed = new ArrayList<>();
+
+            for (int i = 0; i < chunk.size(); i++) {
+                int index = from + i;
+                BulkEnrollmentRequest request = chunk.get(i);
+                if (request.getStudentUsername() == null || request.getParallelId() == null) {
+                    results.add(failed(index, request, "Student username and parallel id are required"));
+                    continue;
+                }
+                Enrollment existing = findMatchingEnrollment(enrollmentsByStudent, request);
+                if (existing != null) {
+                    changed.put(existing.getId(), existing);
+                    results.add(new BulkItemResult(index, request.getStudentUsername(), request.getParallelId(), existing.getId(), BulkItemStatus.CREATED, null));
+                    continue;
+                }
+                Enrollment enrollment = new Enrollment();
+                enrollment.setId(UUID.randomUUID().toString());
+                enrollment.setStudentUsername(request.getStudentUsername());
+                enrollment.setCourse(request.getCourse());
+                enrollment.setTeacherName(request.getTeacherName());
+                enrollment.setParallelId(request.getParallelId());
+                enrollment.setSemester(request.getSemester());
+                enrollmentsByStudent.computeIfAbsent(enrollment.getStudentUsername(), username -> new ArrayList<>()).add(enrollment);
+                changed.put(enrollment.getId(), enrollment);
+
+                queries.add(new IndexQueryBuilder().withId(enrollment.getId()).withObject(enrollment).build());
+                indexed.add(new BulkItemResult(index, request.getStudentUsername(), request.getParallelId(), enrollment.getId(), BulkItemStatus.CREATED, null));
+            }
+            results.addAll(bulkIndex(queries, indexed));
+        }
+        return publish(sorted(results), changed, EnrollmentChangeType.CREATED);
+    }
+
+    /**
+     * Grades enrollments in bulk.
+     * An enrollment is matched by student and parallel id, or by student and teacher name when no parallel id is given.
+     * A grade is saved only if the enrollment has not changed since it was read, items rejected for a concurrent
+     * change are read again and retried.
+     *
+     * @param requests The grades to set, each with the username of its student.
+     * @return Result of every item, in the order of the requests.
+     */
+    public List<BulkItemResult> gradeEnrollments(List<BulkEnrollmentRequest> requests) {
+        List<BulkItemResult> results = new ArrayList<>(requests.size());
+        Map<String, Enrollment> changed = new HashMap<>();
+        for (int from = 0; from < requests.size(); from += batchSize) {
+            List<Integer> chunk = new ArrayList<>();
+            for (int index = from; index < Math.min(from + batchSize, requests.size()); index++) {
+                BulkEnrollmentRequest request = requests.get(index);
+                if (!isGrade(request.getGrade())) {
+                    results.add(failed(index, request, "Invalid grade format"));
+                    continue;
+                }
+                chunk.add(index);
+            }
+            results.addAll(saveNextRevisions(requests, chunk, changed, BulkItemStatus.UPDATED,
+                    (request, enrollment) -> enrollment.setGrade(Grade.valueOf(request.getGrade()))));
+        }
+        return publish(sorted(results), changed, EnrollmentChangeType.GRADED);
+    }
+
+    /**
+     * Deletes enrollments in bulk, matched by student and parallel id.
+     * Each deletion is first stored as a new revision and published, only the enrollments whose event was
+     * acknowledged are removed, the others stay in place for a retry.
+     *
+     * @param requests The enrollments to delete, each with the username of its student and the parallel id.
+     * @return Result of every item, in the order of the requests.
+     */
+    public List<BulkItemResult> deleteEnrollments(List<BulkEnrollmentRequest> requests) {
+        List<BulkItemResult> results = new ArrayList<>(requests.size());
+        Map<String, Enrollment> changed = new HashMap<>();
+        for (int from = 0; from < requests.size(); from += batchSize) {
+            List<Integer> chunk = new ArrayList<>();
+            for (int index = from; index < Math.min(from + batchSize, requests.size()); index++) {
+                BulkEnrollmentRequest request = requests.get(index);
+                if (request.getParallelId() == null) {
+                    results.add(failed(index, request, "No matching enrollment found"));
+                    continue;
+                }
+                chunk.add(index);
+            }
+            Map<String, Enrollment> stored = new HashMap<>();
+            List<BulkItemResult> chunkResults = publish(saveNextRevisions(requests, chunk, stored, BulkItemStatus.DELETED,
+                    (request, enrollment) -> { }), stored, EnrollmentChangeType.DELETED);
+            changed.putAll(stored);
+            results.addAll(bulkDelete(chunkResults));
+        }
+        cacheInvalidator.evict(changed.values().stream()
+                .map(Enrollment::getStudentUsername)
+                .collect(Collectors.toSet()));
+        return sorted(results);
+    }
+
+    /**
+     * Publishes the changes of the enrollments of the succeeded results and evicts the cached enrollments of their
+     * students. Results whose change could not be published are marked failed.
+     */
+    private List<BulkItemResult> publish(List<BulkItemResult> results, Map<String, Enrollment> changed, EnrollmentChangeType type) {
+        List<BulkItemResult> succeeded = results.stream()
+                .filter(result -> result.getStatus() != BulkItemStatus.FAILED)
+                .toList();
+        if (type != EnrollmentChangeType.DELETED) {
+            cacheInvalidator.evict(succeeded.stream()
+                    .map(BulkItemResult::getStudentUsername)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet()));
+        }
+        Set<String> unpublished = eventPublisher.publishAll(type, succeeded.stream()
+                .map(BulkItemResult::getEnrollmentId)
+                .distinct()
+                .map(changed::get)
+                .filter(Objects::nonNull)
+                .toList());
+        markFailed(succeeded, unpublished.stream().collect(Collectors.toMap(id -> id,
+                id -> "Change event could not be published, retry the item")));
+        return results;
+    }
+
+    /**
+     * Applies a change to the enrollments the requests refer to and stores each under its next revision, guarded by
+     * the sequence number and primary term it was read with. Items rejected because their enrollment changed
+     * concurrently are read again and retried, at most enrollment.write.max-conflict-retries times.
+     */
+    private List<BulkItemResult> saveNextRevisions(List<BulkEnrollmentRequest> requests, List<Integer> indexes,
+                                                   Map<String, Enrollment> changed, BulkItemStatus status,
+                                                   BiConsumer<BulkEnrollmentRequest, Enrollment> change) {
+        List<BulkItemResult> results = new ArrayList<>();
+        List<Integer> pending = indexes;
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            Map<String, List<Enrollment>> enrollmentsByStudent = findEnrollmentsOfStudents(pending.stream().map(requests::get).toList());
+            List<IndexQuery> queries = new ArrayList<>();
+            List<BulkItemResult> indexed = new ArrayList<>();
+            Map<String, Enrollment> attempted = new HashMap<>();
+
+            for (int index : pending) {
+                BulkEnrollmentRequest request = requests.get(index);
+                Enrollment enrollment = findMatchingEnrollment(enrollmentsByStudent, request);
+                if (enrollment == null) {
+                    results.add(failed(index, request, "No matching enrollment found"));
+                    continue;
+                }
+                change.accept(request, enrollment);
+                enrollment.setRevision(enrollment.getRevision() + 1);
+                attempted.put(enrollment.getId(), enrollment);
+
+                queries.add(new IndexQueryBuilder().withId(enrollment.getId()).withObject(enrollment)
+                        .withSeqNoPrimaryTerm(enrollment.getSeqNoPrimaryTerm()).build());
+                indexed.add(new BulkItemResult(index, request.getStudentUsername(), enrollment.getParallelId(), enrollment.getId(), status, null));
+            }
+            bulkIndex(queries, indexed);
+
+            boolean lastAttempt = attempt >= maxConflictRetries;
+            List<Integer> conflicting = new ArrayList<>();
+            for (BulkItemResult result : indexed) {
+                if (result.getStatus() != BulkItemStatus.FAILED) {
+                    changed.put(result.getEnrollmentId(), attempted.get(result.getEnrollmentId()));
+                    results.add(result);
+                } else if (!lastAttempt && result.getError().contains(VERSION_CONFLICT)) {
+                    conflicting.add(result.getIndex());
+                } else {
+                    results.add(result);
+                }
+            }
+            pending = conflicting;
+        }
+        return results;
+    }
+
+    private List<BulkItemResult> bulkIndex(List<IndexQuery> queries, List<BulkItemResult> indexed) {
+        if (queries.isEmpty()) {
+            return indexed;
+        }
+        BulkOptions bulkOptions = BulkOptions.builder().withRefreshPolicy(refreshPolicy).build();
+        try {
+            elasticsearchOperations.bulkIndex(queries, bulkOptions, Enrollment.class);
+        } catch (BulkFailureException e) {
+            markFailed(indexed, e.getFailedDocuments());
+        }
+        return indexed;
+    }
+
+    private List<BulkItemResult> bulkDelete(List<BulkItemResult> results) {
+        List<String> ids = results.stream()
+                .filter(result -> result.getStatus() != BulkItemStatus.FAILED)
+                .map(BulkItemResult::getEnrollmentId)
+                .distinct()
+                .toList();
+        if (ids.isEmpty()) {
+            return results;
+        }
+        ByQueryResponse response = elasticsearchOperations.withRefreshPolicy(refreshPolicy)
+                .delete(elasticsearchOperations.idsQuery(ids), Enrollment.class);
+        Map<String, String> failures = response.getFailures().stream()
+                .filter(failure -> failure.getId() != null)
+                .collect(Collectors.toMap(ByQueryResponse.Failure::getId,
+                        failure -> failure.getCause() == null ? "Delete failed" : String.valueOf(failure.getCause().getMessage()),
+                        (first, second) -> first));
+        markFailed(results, failures);
+        return results;
+    }
+
+    private void markFailed(List<BulkItemResult> results, Map<String, ?> failedDocuments) {
+        for (BulkItemResult result : results) {
+            Object failure = failedDocuments.get(result.getEnrollmentId());
+            if (failure != null) {
+                result.setStatus(BulkItemStatus.FAILED);
+                result.setError(String.valueOf(failure));
+            }
+        }
+    }
+
+    /**
+     * Loads only the enrollments the requests refer to, matched by student and parallel id, or by student and teacher
+     * name when no parallel id is given. The hits are read through a scroll, so their number is not limited by the
+     * result window of the index.
+     */
+    private Map<String, List<Enrollment>> findEnrollmentsOfStudents(List<BulkEnrollmentRequest> requests) {
+        List<Query> referenced = new ArrayList<>();
+        for (BulkEnrollmentRequest request : requests) {
+            if (request.getStudentUsername() == null) {
+                continue;
+            }
+            Query student = Query.of(q -> q.term(t -> t.field("studentUsername").value(request.getStudentUsername())));
+            if (request.getParallelId() != null) {
+                Query parallel = Query.of(q -> q.term(t -> t.field("parallelId").value(request.getParallelId())));
+                referenced.add(Query.of(q -> q.bool(b -> b.filter(student, parallel))));
+            } else if (request.getTeacherName() != null) {
+                Query teacher = Query.of(q -> q.term(t -> t.field("teacherName").value(request.getTeacherName())));
+                referenced.add(Query.of(q -> q.bool(b -> b.filter(student, teacher))));
+            }
+        }
+        if (referenced.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.bool(b -> b.filter(f -> f.bool(any -> any.should(referenced).minimumShouldMatch("1")))))
+                .withPageable(PageRequest.of(0, batchSize))
+                .build();
+        Map<String, List<Enrollment>> enrollmentsByStudent = new HashMap<>();
+        try (SearchHitsIterator<Enrollment> hits = elasticsearchOperations.searchForStream(query, Enrollment.class)) {
+            hits.forEachRemaining(hit -> enrollmentsByStudent
+                    .computeIfAbsent(hit.getContent().getStudentUsername(), username -> new ArrayList<>())
+                    .add(hit.getContent()));
+        }
+        return enrollmentsByStudent;
+    }
+
+    private Enrollment findMatchingEnrollment(Map<String, List<Enrollment>> enrollmentsByStudent, BulkEnrollmentRequest request) {
+        return enrollmentsByStudent.getOrDefault(request.getStudentUsername(), List.of()).stream()
+                .filter(enrollment -> request.getParallelId() != null
+                        ? request.getParallelId().equals(enrollment.getParallelId())
+                        : Objects.equals(request.getTeacherName(), enrollment.getTeacherName()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static boolean isGrade(String grade) {
+        try {
+            Grade.valueOf(grade);
+            return true;
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return false;
+        }
+    }
+
+    private static BulkItemResult failed(int index, BulkEnrollmentRequest request, String error) {
+        return new BulkItemResult(index, request.getStudentUsername(), request.getParallelId(), null, BulkItemStatus.FAILED, error);
+    }
+
+    private static List<BulkItemResult> sorted(List<BulkItemResult> results) {
+        results.sort(Comparator.comparingInt(BulkItemResult::getIndex));
+        return results;
+    }
+}
@@ -0,0 +1,85 @@
+package cz.cvut.fel.nss.enrollment.service;
+
+import cz.cvut.fel.nss.enrollment.config.CacheConfig;
+import org.apache.kafka.common.KafkaException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Evicts cached enrollments of students whose enrollments changed.
+ *
+ * Entries are evicted in this replica right away. When enrollment.cache.invalidation.enabled is set, the usernames are
+ * also broadcast on enrollmentCacheTopic, every enrollment-service replica listens with its own consumer group and
+ * evicts them too, so no replica keeps serving a grade report that changed elsewhere until its entry expires.
+ */
+@Service
+public class EnrollmentCacheInvalidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentCacheInvalidator.class);
+
+    private static final String CACHE_TOPIC = "enrollmentCacheTopic";
+    private static final String SEPARATOR = ",";
+
+    private final Cache enrollmentsCache;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final boolean broadcast;
+
+    @Autowired
+    public EnrollmentCacheInvalidator(CacheManager cacheManager,
+                                      KafkaTemplate<String, String> kafkaTemplate,
+                                      @Value("${enrollment.cache.invalidation.enabled:false}") boolean broadcast) {
+        this.enrollmentsCache = Objects.requireNonNull(cacheManager.getCache(CacheConfig.ENROLLMENTS));
+        this.kafkaTemplate = kafkaTemplate;
+        this.broadcast = broadcast;
+    }
+
+    /**
+     * Evicts cached enrollments of the given students in every replica.
+     *
+     * @param usernames The usernames of the students.
+     */
+    public void evict(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+        usernames.forEach(enrollmentsCache::evict);
+        if (!broadcast) {
+            return;
+        }
+        try {
+            kafkaTemplate.send(CACHE_TOPIC, String.join(SEPARATOR, usernames)).whenComplete((result, e) -> {
+                if (e != null) {
+                    logger.warn("Failed to broadcast eviction of cached enrollments", e);
+                }
+            });
+        } catch (KafkaException e) {
+            logger.warn("Failed to broadcast eviction of cached enrollments", e);
+        }
+    }
+
+    /**
+     * Evicts cached enrollments changed by another replica.
+     */
+    @KafkaListener(topics = CACHE_TOPIC,
+            groupId = "enrollment-cache-#{T(java.util.UUID).randomUUID()}",
+            autoStartup = "${enrollment.cache.invalidation.enabled:false}",
+            properties = {
+                    "key.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "value.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "auto.offset.reset=latest"
+            })
+    public void onRemoteEviction(String usernames) {
+        Arrays.stream(usernames.split(SEPARATOR)).forEach(enrollmentsCache::evict);
+    }
+}
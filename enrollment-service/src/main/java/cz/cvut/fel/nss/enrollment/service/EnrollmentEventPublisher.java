@@ -0,0 +1,111 @@
+package cz.cvut.fel.nss.enrollment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.cvut.fel.nss.enrollment.event.EnrollmentChangedEvent;
+import cz.cvut.fel.nss.enrollment.model.Enrollment;
+import cz.cvut.fel.nss.enrollment.utils.enums.EnrollmentChangeType;
+import cz.cvut.fel.nss.enrollment.utils.exceptions.EnrollmentEventException;
+import org.apache.kafka.common.KafkaException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes an {@link EnrollmentChangedEvent} for every change of an enrollment.
+ *
+ * Events are keyed by the username of the student, so all changes of one student land in the same partition of
+ * enrollmentTopic and are consumed in the order they were made. Events are sent after the change is stored and the
+ * caller waits until Kafka acknowledges them, so a change whose event is lost is reported as failed instead of being
+ * silently dropped. The caller retries such a change; a retried event keeps the ID of the revision it describes,
+ * so consumers drop it when it has already arrived.
+ */
+@Service
+public class EnrollmentEventPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentEventPublisher.class);
+
+    public static final String ENROLLMENT_TOPIC = "enrollmentTopic";
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long sendTimeoutMs;
+
+    @Autowired
+    public EnrollmentEventPublisher(KafkaTemplate<String, String> kafkaTemplate,
+                                    ObjectMapper objectMapper,
+                                    @Value("${enrollment.events.enabled:true}") boolean enabled,
+                                    @Value("${enrollment.events.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+
+    /**
+     * Publishes a change of an enrollment under the revision the enrollment carries.
+     *
+     * @param type       The type of the change.
+     * @param enrollment The enrollment as stored after the change.
+     * @throws EnrollmentEventException if the change could not be published.
+     */
+    public void publish(EnrollmentChangeType type, Enrollment enrollment) {
+        if (!publishAll(type, List.of(enrollment)).isEmpty()) {
+            throw new EnrollmentEventException("Change of enrollment " + enrollment.getId() + " could not be published");
+        }
+    }
+
+    /**
+     * Publishes changes of several enrollments at once and waits until all of them are acknowledged or failed.
+     *
+     * @param type        The type of the changes.
+     * @param enrollments The enrollments as stored after the change.
+     * @return IDs of the enrollments whose change could not be published.
+     */
+    public Set<String> publishAll(EnrollmentChangeType type, Collection<Enrollment> enrollments) {
+        Set<String> failed = new HashSet<>();
+        if (!enabled || enrollments.isEmpty()) {
+            return failed;
+        }
+        Map<String, CompletableFuture<?>> sends = new LinkedHashMap<>();
+        for (Enrollment enrollment : enrollments) {
+            EnrollmentChangedEvent event = EnrollmentChangedEvent.of(type, enrollment, enrollment.getRevision());
+            try {
+                sends.put(enrollment.getId(), kafkaTemplate.send(ENROLLMENT_TOPIC, event.getStudentUsername(),
+                        objectMapper.writeValueAsString(event)));
+            } catch (JsonProcessingException | KafkaException e) {
+                logger.warn("Failed to publish enrollment change {}", event.getEventId(), e);
+                failed.add(enrollment.getId());
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (Map.Entry<String, CompletableFuture<?>> send : sends.entrySet()) {
+            try {
+                send.getValue().get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                logger.warn("Failed to publish change of enrollment {}", send.getKey(), e);
+                failed.add(send.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.add(send.getKey());
+            }
+        }
+        return failed;
+    }
+}
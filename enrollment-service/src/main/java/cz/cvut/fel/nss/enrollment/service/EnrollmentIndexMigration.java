@@ -0,0 +1,93 @@
+package cz.cvut.fel.nss.enrollment.service;
+
+import cz.cvut.fel.nss.enrollment.model.Enrollment;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.reindex.ReindexRequest;
+import org.springframework.data.elasticsearch.core.reindex.ReindexResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Brings the enrollment index to the current mapping version before the application starts serving requests.
+ *
+ * The application always goes through the {@link Enrollment#INDEX} alias. Each mapping version lives in its own
+ * index named after the alias and the version. When the alias does not point to the current version yet, the index
+ * of the current version is created from the mapping of {@link Enrollment}, the documents of the previous index
+ * (a plain enrollment index with dynamic mapping, or an older version) are reindexed into it, and the alias is
+ * switched with a single atomic request that also deletes the previous index. Writes made to the previous index by
+ * other replicas while the reindex runs are not carried over, so the migration is meant to run during a rollout.
+ */
+@Component
+public class EnrollmentIndexMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentIndexMigration.class);
+
+    private static final int MAPPING_VERSION = 2;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final boolean enabled;
+
+    @Autowired
+    public EnrollmentIndexMigration(ElasticsearchOperations elasticsearchOperations,
+                                    @Value("${enrollment.index.migrate-on-startup:true}") boolean enabled) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        String target = Enrollment.INDEX + "-v" + MAPPING_VERSION;
+        IndexOperations aliasOps = elasticsearchOperations.indexOps(IndexCoordinates.of(Enrollment.INDEX));
+
+        List<String> previous = new ArrayList<>();
+        if (aliasOps.exists()) {
+            Set<String> current = aliasOps.getAliasesForIndex(Enrollment.INDEX).keySet();
+            if (current.contains(target)) {
+                return;
+            }
+            previous.addAll(current);
+        }
+
+        IndexOperations targetOps = elasticsearchOperations.indexOps(IndexCoordinates.of(target));
+        if (!targetOps.exists()) {
+            Document mapping = elasticsearchOperations.indexOps(Enrollment.class).createMapping(Enrollment.class);
+            targetOps.create();
+            targetOps.putMapping(mapping);
+        }
+
+        if (!previous.isEmpty()) {
+            logger.info("Reindexing enrollments from {} to {}", previous, target);
+            ReindexRequest request = ReindexRequest.builder(IndexCoordinates.of(previous.toArray(String[]::new)), IndexCoordinates.of(target)).build();
+            ReindexResponse response = elasticsearchOperations.reindex(request);
+            if (!response.getFailures().isEmpty()) {
+                throw new IllegalStateException("Reindexing enrollments to " + target + " failed: " + response.getFailures());
+            }
+            logger.info("Reindexed {} enrollments to {}", response.getTotal(), target);
+        }
+
+        List<AliasAction> actions = new ArrayList<>();
+        actions.add(new AliasAction.Add(AliasActionParameters.builder().withIndices(target).withAliases(Enrollment.INDEX).build()));
+        for (String index : previous) {
+            actions.add(new AliasAction.RemoveIndex(AliasActionParameters.builder().withIndices(index).build()));
+        }
+        targetOps.alias(new AliasActions(actions.toArray(AliasAction[]::new)));
+        logger.info("Alias {} now points to {}", Enrollment.INDEX, target);
+    }
+}
@@ -1,31 +1,82 @@
 package cz.cvut.fel.nss.enrollment.service;
 
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import cz.cvut.fel.nss.enrollment.config.CacheConfig;
 import cz.cvut.fel.nss.enrollment.model.Enrollment;
 import cz.cvut.fel.nss.enrollment.repository.EnrollmentRepository;
 import cz.cvut.fel.nss.enrollment.rest.dto.EnrollmentRequest;
+import cz.cvut.fel.nss.enrollment.utils.enums.EnrollmentChangeType;
 import cz.cvut.fel.nss.enrollment.utils.enums.Grade;
+import cz.cvut.fel.nss.enrollment.utils.enums.Status;
+import cz.cvut.fel.nss.enrollment.utils.exceptions.EnrollmentEventException;
 import cz.cvut.fel.nss.enrollment.utils.exceptions.EnrollmentException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.Query.PointInTime;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class EnrollmentService {
 
+    private static final String SHARD_DOC = "_shard_doc";
+
     private final EnrollmentRepository enrollmentRepository;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final EnrollmentCacheInvalidator cacheInvalidator;
+    private final EnrollmentEventPublisher eventPublisher;
+    private final ObjectWriter ndjsonWriter;
+    private final int exportPageSize;
+    private final Duration exportKeepAlive;
+    private final int maxConflictRetries;
 
     @Autowired
-    public EnrollmentService(EnrollmentRepository enrollmentRepository) {
+    public EnrollmentService(EnrollmentRepository enrollmentRepository,
+                             ElasticsearchOperations elasticsearchOperations,
+                             EnrollmentCacheInvalidator cacheInvalidator,
+                             EnrollmentEventPublisher eventPublisher,
+                             ObjectMapper objectMapper,
+                             @Value("${enrollment.export.page-size:1000}") int exportPageSize,
+                             @Value("${enrollment.export.keep-alive-seconds:60}") long exportKeepAliveSeconds,
+                             @Value("${enrollment.write.max-conflict-retries:3}") int maxConflictRetries) {
         this.enrollmentRepository = enrollmentRepository;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.cacheInvalidator = cacheInvalidator;
+        this.eventPublisher = eventPublisher;
+        this.ndjsonWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.exportPageSize = exportPageSize;
+        this.exportKeepAlive = Duration.ofSeconds(exportKeepAliveSeconds);
+        this.maxConflictRetries = maxConflictRetries;
     }
 
     /**
-     * Retrieves all enrollments by username.
+     * Retrieves all enrollments by username, served from the cache when present.
      *
      * @param username The username of the student.
      * @return List of Enrollments.
      */
+    @Cacheable(cacheNames = CacheConfig.ENROLLMENTS, key = "#username")
     public List<Enrollment> getEnrollmentsByUsername(String username) {
         return enrollmentRepository.findByStudentUsername(username);
     }
@@ -39,29 +90,137 @@ public class EnrollmentService {
         return enrollmentRepository.findAll();
     }
 
+    /**
+     * Writes enrollments as newline-delimited JSON, one enrollment per line, optionally filtered.
+     *
+     * The index is walked in pages over a point-in-time snapshot using search_after, so the export is consistent
+     * even while enrollments change, only one page is held in memory at a time and no scroll context is kept.
+     *
+     * @param course   The code of the course to export, null for all courses.
+     * @param status   The status of enrollments to export, null for all statuses.
+     * @param semester The code of the semester to export, null for all semesters.
+     * @param out      The stream to write to.
+     * @throws IOException If writing to the stream fails.
+     */
+    public void exportEnrollments(String course, Status status, String semester, OutputStream out) throws IOException {
+        Query filter = exportFilter(course, status, semester);
+        String pointInTimeId = elasticsearchOperations.openPointInTime(IndexCoordinates.of(Enrollment.INDEX), exportKeepAlive);
+        try {
+            List<Object> searchAfter = null;
+            while (true) {
+                NativeQueryBuilder page = NativeQuery.builder()
+                        .withQuery(filter)
+                        .withPointInTime(new PointInTime(pointInTimeId, exportKeepAlive))
+                        .withSort(Sort.by(SHARD_DOC))
+                        .withPageable(PageRequest.of(0, exportPageSize))
+                        .withTrackTotalHits(false);
+                if (searchAfter != null) {
+                    page.withSearchAfter(searchAfter);
+                }
+                SearchHits<Enrollment> hits = elasticsearchOperations.search(page.build(), Enrollment.class);
+                for (SearchHit<Enrollment> hit : hits) {
+                    out.write(ndjsonWriter.writeValueAsBytes(hit.getContent()));
+                    out.write('\n');
+                }
+                out.flush();
+                if (hits.getSearchHits().size() < exportPageSize) {
+                    return;
+                }
+                searchAfter = hits.getSearchHit(hits.getSearchHits().size() - 1).getSortValues();
+                if (hits.getPointInTimeId() != null) {
+                    pointInTimeId = hits.getPointInTimeId();
+                }
+            }
+        } finally {
+            elasticsearchOperations.closePointInTime(pointInTimeId);
+        }
+    }
+
+    private Query exportFilter(String course, Status status, String semester) {
+        List<Query> filters = new ArrayList<>();
+        if (course != null) {
+            filters.add(Query.of(q -> q.term(t -> t.field("course").value(course))));
+        }
+        if (status != null) {
+            filters.add(Query.of(q -> q.term(t -> t.field("status").value(status.name()))));
+        }
+        if (semester != null) {
+            filters.add(Query.of(q -> q.term(t -> t.field("semester").value(semester))));
+        }
+        return Query.of(q -> q.bool(b -> b.filter(filters)));
+    }
+
     /**
      * Create enrollment by username.
+     * When the student is already enrolled in the parallel, the existing enrollment is kept and its change event is
+     * published again, so a retried request does not create a duplicate.
      *
      * @param username The username of the student.
      * @param course The course to enroll in.
      * @param teacherName The name of the teacher.
      * @param parallelId Id of parallel.
+     * @param semester The code of the semester of the parallel.
+     */
+    public void createEnrollmentByUsername(String username, String course, String teacherName, Long parallelId, String semester) {
+        Enrollment saved = (parallelId == null ? Optional.<Enrollment>empty()
+                : enrollmentRepository.findByStudentUsernameAndParallelId(username, parallelId))
+                .orElseGet(() -> {
+                    Enrollment enrollment = new Enrollment();
+                    enrollment.setStudentUsername(username);
+                    enrollment.setCourse(course);
+                    enrollment.setTeacherName(teacherName);
+                    enrollment.setParallelId(parallelId);
+                    enrollment.setSemester(semester);
+                    return enrollmentRepository.save(enrollment);
+                });
+        cacheInvalidator.evict(List.of(username));
+        eventPublisher.publish(EnrollmentChangeType.CREATED, saved);
+    }
+
+    /**
+     * Create several enrollments of one student with a single save.
+     * Parallels the student is already enrolled in are skipped and their change events are published again.
+     *
+     * @param username The username of the student.
+     * @param enrollmentRequests The enrollments to create.
      */
-    public void createEnrollmentByUsername(String username, String course, String teacherName, Long parallelId) {
-        Enrollment enrollment = new Enrollment();
-        enrollment.setStudentUsername(username);
-        enrollment.setCourse(course);
-        enrollment.setTeacherName(teacherName);
-        enrollment.setParallelId(parallelId);
-        enrollmentRepository.save(enrollment);
+    public void createEnrollmentsByUsername(String username, List<EnrollmentRequest> enrollmentRequests) {
+        Map<Long, Enrollment> existing = enrollmentRepository.findByStudentUsername(username).stream()
+                .filter(enrollment -> enrollment.getParallelId() != null)
+                .collect(Collectors.toMap(Enrollment::getParallelId, enrollment -> enrollment, (first, second) -> first));
+        List<Enrollment> created = new ArrayList<>();
+        List<Enrollment> enrollments = new ArrayList<>();
+        for (EnrollmentRequest enrollmentRequest : enrollmentRequests) {
+            Enrollment enrolled = enrollmentRequest.getParallelId() == null ? null : existing.get(enrollmentRequest.getParallelId());
+            if (enrolled != null) {
+                enrollments.add(enrolled);
+                continue;
+            }
+            Enrollment enrollment = new Enrollment();
+            enrollment.setStudentUsername(username);
+            enrollment.setCourse(enrollmentRequest.getCourse());
+            enrollment.setTeacherName(enrollmentRequest.getTeacherName());
+            enrollment.setParallelId(enrollmentRequest.getParallelId());
+            enrollment.setSemester(enrollmentRequest.getSemester());
+            created.add(enrollment);
+        }
+        if (!created.isEmpty()) {
+            enrollmentRepository.saveAll(created).forEach(enrollments::add);
+        }
+        cacheInvalidator.evict(List.of(username));
+        if (!eventPublisher.publishAll(EnrollmentChangeType.CREATED, enrollments).isEmpty()) {
+            throw new EnrollmentEventException("Enrollments of " + username + " were stored, but not all of their changes could be published");
+        }
     }
 
     /**
      * Grade student by username.
+     * The grade is saved only if the enrollment has not changed since it was read, otherwise the enrollment is read
+     * again and the grade applied to the new version, so concurrent grades never publish the same revision.
      *
      * @param studentUsername The username of the student.
      * @param enrollmentRequest The request body containing details to grade a student.
-     * @throws EnrollmentException if no enrollment is found.
+     * @throws EnrollmentException if no enrollment is found or it keeps being changed concurrently.
      * @throws IllegalArgumentException if grade does not match requested format.
      */
     public void gradeStudentByUsername(String studentUsername, EnrollmentRequest enrollmentRequest) throws EnrollmentException {
@@ -72,26 +231,58 @@ public class EnrollmentService {
             throw new IllegalArgumentException("Invalid grade format", e);
         }
 
-        Enrollment enrollment = enrollmentRepository.findByStudentUsernameAndTeacherName(
-                        studentUsername,
-                        enrollmentRequest.getTeacherName())
-                .stream()
-                .findFirst()
-                .orElseThrow(() -> new EnrollmentException("No matching enrollment found for student with specified teacher"));
+        Enrollment saved = null;
+        for (int attempt = 1; saved == null; attempt++) {
+            Enrollment enrollment = enrollmentRepository.findByStudentUsernameAndTeacherName(
+                            studentUsername,
+                            enrollmentRequest.getTeacherName())
+                    .stream()
+                    .findFirst()
+                    .orElseThrow(() -> new EnrollmentException("No matching enrollment found for student with specified teacher"));
 
-        enrollment.setGrade(studentGrade);
-        enrollmentRepository.save(enrollment);
+            enrollment.setGrade(studentGrade);
+            saved = saveNextRevision(enrollment, attempt);
+        }
+        cacheInvalidator.evict(List.of(studentUsername));
+        eventPublisher.publish(EnrollmentChangeType.GRADED, saved);
     }
 
     /**
      * Remove enrollment by username and parallelId.
+     * The deletion is first stored as a new revision and published, the document is removed only after its event is
+     * acknowledged, so a failed publish leaves the enrollment in place for the retry.
      *
      * @param username The username of the student.
      * @param parallelId Id of parallel.
+     * @throws EnrollmentException if no enrollment is found or it keeps being changed concurrently.
      */
     public void deleteEnrollmentByUsername(String username, Long parallelId) throws EnrollmentException {
-        Enrollment enrollment = enrollmentRepository.findByStudentUsernameAndParallelId(username, parallelId).orElseThrow(() -> new EnrollmentException("No matching enrollment found for student with specified parallel"));
-        enrollmentRepository.delete(enrollment);
+        Enrollment deleted = null;
+        for (int attempt = 1; deleted == null; attempt++) {
+            Enrollment enrollment = enrollmentRepository.findByStudentUsernameAndParallelId(username, parallelId).orElseThrow(() -> new EnrollmentException("No matching enrollment found for student with specified parallel"));
+            deleted = saveNextRevision(enrollment, attempt);
+        }
+        eventPublisher.publish(EnrollmentChangeType.DELETED, deleted);
+        enrollmentRepository.delete(deleted);
+        cacheInvalidator.evict(List.of(username));
+    }
+
+    /**
+     * Saves the enrollment under its next revision, guarded by the sequence number and primary term it was read with.
+     *
+     * @return The saved enrollment, null when it was changed concurrently and has to be read again.
+     * @throws EnrollmentException if the enrollment was changed concurrently on the last allowed attempt.
+     */
+    private Enrollment saveNextRevision(Enrollment enrollment, int attempt) throws EnrollmentException {
+        enrollment.setRevision(enrollment.getRevision() + 1);
+        try {
+            return enrollmentRepository.save(enrollment);
+        } catch (OptimisticLockingFailureException e) {
+            if (attempt >= maxConflictRetries) {
+                throw new EnrollmentException("Enrollment was changed concurrently, try again");
+            }
+            return null;
+        }
     }
 
 }
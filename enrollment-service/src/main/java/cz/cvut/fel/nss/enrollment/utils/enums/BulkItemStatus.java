@@ -0,0 +1,8 @@
+package cz.cvut.fel.nss.enrollment.utils.enums;
+
+public enum BulkItemStatus {
+    CREATED,
+    UPDATED,
+    DELETED,
+    FAILED
+}
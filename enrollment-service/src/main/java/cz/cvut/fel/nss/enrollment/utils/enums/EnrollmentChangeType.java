@@ -0,0 +1,7 @@
+package cz.cvut.fel.nss.enrollment.utils.enums;
+
+public enum EnrollmentChangeType {
+    CREATED,
+    GRADED,
+    DELETED
+}
@@ -0,0 +1,11 @@
+package cz.cvut.fel.nss.enrollment.utils.exceptions;
+
+public class EnrollmentEventException extends RuntimeException {
+    public EnrollmentEventException(String errorMessage){
+        super(errorMessage);
+    }
+
+    public EnrollmentEventException(String errorMessage, Throwable cause){
+        super(errorMessage, cause);
+    }
+}
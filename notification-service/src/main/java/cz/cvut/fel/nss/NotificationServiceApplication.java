@@ -1,22 +1,46 @@
 package cz.cvut.fel.nss;
 
+import cz.cvut.fel.nss.config.KafkaConfig;
 import cz.cvut.fel.nss.event.EnrollmentGradedEvent;
-import cz.cvut.fel.nss.service.EmailService;
+import cz.cvut.fel.nss.service.EmailDispatcher;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.kafka.KafkaException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.mail.MailSendException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @SpringBootApplication
 @Slf4j
 public class NotificationServiceApplication {
 
-    private final EmailService emailService;
+    private final EmailDispatcher emailDispatcher;
+    private final DeadLetterPublishingRecoverer deadLetterRecoverer;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSize;
 
     @Autowired
-    public NotificationServiceApplication(EmailService emailService) {
-        this.emailService = emailService;
+    public NotificationServiceApplication(EmailDispatcher emailDispatcher,
+                                          DeadLetterPublishingRecoverer deadLetterRecoverer,
+                                          MeterRegistry meterRegistry) {
+        this.emailDispatcher = emailDispatcher;
+        this.deadLetterRecoverer = deadLetterRecoverer;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = DistributionSummary.builder("notification.batch.size").register(meterRegistry);
     }
 
     public static void main(String[] args) {
@@ -24,12 +48,52 @@ public class NotificationServiceApplication {
     }
 
     /**
-     * sends an email to the student when the enrollment is graded
-     * @param event the event that contains the student username
+     * sends an email to every student whose enrollment was graded, one batch of polled records at a time.
+     * the dispatcher retries only the emails the mail server did not accept, so delivered emails are not sent again.
+     * records that cannot be read or whose email still fails are moved to the dead-letter topic one by one, after which
+     * the whole batch is acknowledged. only when moving a record to the dead-letter topic fails, the records before it are
+     * committed and the error handler retries the batch from that record.
+     * the time spent on each batch is recorded as notification.batch.
+     * @param records the records that contain the events with the student usernames
+     * @param ack the acknowledgment of the whole batch
      */
-    @KafkaListener(topics = "notificationTopic")
-    public void handleNotification(EnrollmentGradedEvent event) {
-        emailService.sendEmail(event);
-        log.info("Student " + event.getStudentUsername() + " has been graded");
+    @KafkaListener(topics = KafkaConfig.NOTIFICATION_TOPIC, concurrency = "${notification.topic.partitions:3}")
+    public void handleNotifications(List<ConsumerRecord<String, EnrollmentGradedEvent>> records, Acknowledgment ack) {
+        batchSize.record(records.size());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            List<Integer> readable = new ArrayList<>(records.size());
+            Map<Integer, Exception> failures = new TreeMap<>();
+            for (int i = 0; i < records.size(); i++) {
+                ConsumerRecord<String, EnrollmentGradedEvent> record = records.get(i);
+                if (record.value() != null) {
+                    readable.add(i);
+                } else {
+                    String message = "Notification at offset " + record.offset() + " of partition " + record.partition() + " could not be read";
+                    failures.put(i, new DeserializationException(message, null, false, null));
+                }
+            }
+
+            List<Integer> failed = emailDispatcher.dispatch(readable.stream().map(i -> records.get(i).value()).toList());
+            for (int position : failed) {
+                int index = readable.get(position);
+                failures.put(index, new MailSendException("Failed to send email to student " + records.get(index).value().getStudentUsername()));
+            }
+            for (Map.Entry<Integer, Exception> failure : failures.entrySet()) {
+                try {
+                    deadLetterRecoverer.accept(records.get(failure.getKey()), failure.getValue());
+                } catch (KafkaException e) {
+                    throw new BatchListenerFailedException(failure.getValue().getMessage(), failure.getValue(), failure.getKey());
+                }
+            }
+
+            ack.acknowledge();
+            outcome = failures.isEmpty() ? "success" : "partial";
+            log.info((readable.size() - failed.size()) + " students have been notified about their grades, "
+                    + failures.size() + " notifications moved to " + KafkaConfig.NOTIFICATION_DEAD_LETTER_TOPIC);
+        } finally {
+            sample.stop(Timer.builder("notification.batch").tag("outcome", outcome).register(meterRegistry));
+        }
     }
 }
@@ -0,0 +1,70 @@
+package cz.cvut.fel.nss.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+public class KafkaConfig {
+
+    public static final String NOTIFICATION_TOPIC = "notificationTopic";
+    public static final String NOTIFICATION_DEAD_LETTER_TOPIC = NOTIFICATION_TOPIC + ".DLT";
+
+    /**
+     * Topic of notifications, created on startup when missing. The listener runs one consumer per partition.
+     */
+    @Bean
+    public NewTopic notificationTopic(@Value("${notification.topic.partitions:3}") int partitions) {
+        return TopicBuilder.name(NOTIFICATION_TOPIC).partitions(partitions).build();
+    }
+
+    /**
+     * Topic of notifications that could not be read or sent, with as many partitions as the notification topic,
+     * so every record keeps its partition.
+     */
+    @Bean
+    public NewTopic notificationDeadLetterTopic(@Value("${notification.topic.partitions:3}") int partitions) {
+        return TopicBuilder.name(NOTIFICATION_DEAD_LETTER_TOPIC).partitions(partitions).build();
+    }
+
+    /**
+     * Moves a notification to the dead-letter topic, keeping its partition. Records that cannot be deserialized are
+     * moved with their original bytes.
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer notificationDeadLetterRecoverer(KafkaProperties kafkaProperties) {
+        Map<String, Object> producerProperties = kafkaProperties.buildProducerProperties();
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(byte[].class, new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProperties,
+                new StringSerializer(), new ByteArraySerializer())));
+        templates.put(Object.class, new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProperties,
+                new StringSerializer(), new JsonSerializer<>())));
+        return new DeadLetterPublishingRecoverer(templates);
+    }
+
+    /**
+     * Retries a batch the listener failed on a few times and then moves the failed record to the dead-letter topic,
+     * so one bad record does not block its partition.
+     */
+    @Bean
+    public DefaultErrorHandler kafkaErrorHandler(DeadLetterPublishingRecoverer notificationDeadLetterRecoverer,
+                                                 @Value("${notification.retry.interval-ms:2000}") long retryIntervalMs,
+                                                 @Value("${notification.retry.max-attempts:3}") long maxAttempts) {
+        return new DefaultErrorHandler(notificationDeadLetterRecoverer, new FixedBackOff(retryIntervalMs, Math.max(0, maxAttempts - 1)));
+    }
+}
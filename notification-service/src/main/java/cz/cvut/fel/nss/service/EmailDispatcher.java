@@ -0,0 +1,160 @@
+package cz.cvut.fel.nss.service;
+
+import cz.cvut.fel.nss.event.EnrollmentGradedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Sends the emails of a batch of events concurrently.
+ *
+ * The emails are split into chunks of notification.mail.messages-per-connection, each chunk is sent over one SMTP
+ * connection by one of notification.mail.workers threads, so a batch needs only a few SMTP sessions instead of one
+ * per email. All workers share a limit of notification.mail.rate-per-second emails, so a large batch does not
+ * overload the mail server. A chunk that does not fit into the queue of the pool is sent by the calling thread,
+ * which slows down consumption instead of dropping emails. Every email the server accepts is recorded at once, and
+ * only the emails that were not accepted are sent again, up to notification.mail.max-attempts times. When a chunk
+ * times out, its emails accepted so far count as delivered; only the email being handed to the server at that moment
+ * may be sent twice.
+ */
+@Service
+@Slf4j
+public class EmailDispatcher {
+
+    private final EmailService emailService;
+    private final ThreadPoolExecutor executor;
+    private final MailRateLimiter rateLimiter;
+    private final int messagesPerConnection;
+    private final long timeoutMs;
+    private final int maxAttempts;
+    private final long retryIntervalMs;
+
+    @Autowired
+    public EmailDispatcher(EmailService emailService,
+                           @Value("${notification.mail.workers:4}") int workers,
+                           @Value("${notification.mail.queue-capacity:100}") int queueCapacity,
+                           @Value("${notification.mail.messages-per-connection:50}") int messagesPerConnection,
+                           @Value("${notification.mail.rate-per-second:20}") double ratePerSecond,
+                           @Value("${notification.mail.timeout-ms:60000}") long timeoutMs,
+                           @Value("${notification.mail.max-attempts:3}") int maxAttempts,
+                           @Value("${notification.mail.retry-interval-ms:1000}") long retryIntervalMs) {
+        this.emailService = emailService;
+        this.rateLimiter = new MailRateLimiter(ratePerSecond);
+        this.messagesPerConnection = Math.max(1, messagesPerConnection);
+        this.timeoutMs = timeoutMs;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryIntervalMs = retryIntervalMs;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "mail-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Sends an email for every event and waits until all of them are delivered or failed.
+     * Only the emails that failed are sent again, all attempts together take at most notification.mail.timeout-ms.
+     *
+     * @param events The events to send emails for.
+     * @return Positions of the events whose email could not be sent, empty when all emails were sent.
+     */
+    public List<Integer> dispatch(List<EnrollmentGradedEvent> events) {
+        List<SimpleMailMessage> messages = events.stream().map(emailService::buildEmail).toList();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        List<Integer> pending = IntStream.range(0, messages.size()).boxed().toList();
+        for (int attempt = 1; ; attempt++) {
+            pending = send(messages, pending, deadline);
+            if (pending.isEmpty() || attempt >= maxAttempts
+                    || System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryIntervalMs) >= deadline) {
+                return pending;
+            }
+            log.warn("Sending " + pending.size() + " of " + messages.size() + " emails failed, retrying them in " + retryIntervalMs + " ms");
+            try {
+                Thread.sleep(retryIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return pending;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private List<Integer> send(List<SimpleMailMessage> messages, List<Integer> positions, long deadline) {
+        List<List<Integer>> chunkPositions = new ArrayList<>();
+        List<Set<Integer>> chunkDelivered = new ArrayList<>();
+        List<Future<List<Integer>>> chunks = new ArrayList<>();
+        for (int from = 0; from < positions.size(); from += messagesPerConnection) {
+            List<Integer> chunkPosition = positions.subList(from, Math.min(from + messagesPerConnection, positions.size()));
+            List<SimpleMailMessage> chunk = chunkPosition.stream().map(messages::get).toList();
+            Set<Integer> delivered = ConcurrentHashMap.newKeySet();
+            chunkPositions.add(chunkPosition);
+            chunkDelivered.add(delivered);
+            chunks.add(executor.submit(() -> {
+                rateLimiter.acquire(chunk.size());
+                return emailService.sendEmails(chunk, delivered::add);
+            }));
+        }
+
+        List<Integer> failed = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            List<Integer> chunkPosition = chunkPositions.get(i);
+            List<Integer> chunkFailed = await(chunks.get(i), deadline);
+            if (chunkFailed == null) {
+                Set<Integer> delivered = chunkDelivered.get(i);
+                for (int position = 0; position < chunkPosition.size(); position++) {
+                    if (!delivered.contains(position)) {
+                        failed.add(chunkPosition.get(position));
+                    }
+                }
+            } else {
+                chunkFailed.forEach(position -> failed.add(chunkPosition.get(position)));
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Waits for a chunk to be sent.
+     *
+     * @return Positions of the emails of the chunk that could not be sent, null when the chunk did not finish.
+     */
+    private List<Integer> await(Future<List<Integer>> chunk, long deadline) {
+        try {
+            return chunk.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            chunk.cancel(true);
+            log.warn("Sending emails timed out after " + timeoutMs + " ms");
+        } catch (ExecutionException e) {
+            log.warn("Sending emails failed", e.getCause());
+        } catch (InterruptedException e) {
+            chunk.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
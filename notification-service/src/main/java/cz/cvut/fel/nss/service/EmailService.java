@@ -1,29 +1,89 @@
 package cz.cvut.fel.nss.service;
 
 import cz.cvut.fel.nss.event.EnrollmentGradedEvent;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.MailException;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
 @Service
 @Slf4j
 public class EmailService {
 
-    private final JavaMailSender javaMailSender;
+    private final JavaMailSenderImpl javaMailSender;
 
     @Autowired
-    public EmailService(JavaMailSender javaMailSender) {
+    public EmailService(JavaMailSenderImpl javaMailSender) {
         this.javaMailSender = javaMailSender;
     }
 
     /**
-     * Sends an email to the student with the grade of the course.
+     * Sends several emails over a single SMTP connection, one message at a time, and reports every email as soon as
+     * the server accepts it. Stops before the next email when the thread is interrupted.
+     *
+     * @param messages  The emails to send.
+     * @param delivered Receives the position of every email the server accepted.
+     * @return Positions of the emails that could not be sent, empty when all were sent.
+     */
+    public List<Integer> sendEmails(List<SimpleMailMessage> messages, IntConsumer delivered) {
+        Transport transport;
+        try {
+            transport = javaMailSender.getSession().getTransport(javaMailSender.getProtocol());
+            transport.connect(javaMailSender.getHost(), javaMailSender.getPort(),
+                    javaMailSender.getUsername(), javaMailSender.getPassword());
+        } catch (MessagingException e) {
+            log.warn("Failed to connect to the mail server to send " + messages.size() + " emails", e);
+            return allPositions(messages);
+        }
+
+        List<Integer> failed = new ArrayList<>();
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    failed.add(i);
+                    continue;
+                }
+                try {
+                    MimeMessage message = javaMailSender.createMimeMessage();
+                    messages.get(i).copyTo(new MimeMailMessage(message));
+                    message.saveChanges();
+                    transport.sendMessage(message, message.getAllRecipients());
+                    delivered.accept(i);
+                } catch (MessagingException | MailException e) {
+                    log.warn("Failed to send email to " + messages.get(i).getTo()[0], e);
+                    failed.add(i);
+                }
+            }
+        } finally {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Failed to close the connection to the mail server", e);
+            }
+        }
+        if (!failed.isEmpty()) {
+            log.warn("Failed to send " + failed.size() + " of " + messages.size() + " emails");
+        }
+        return failed;
+    }
+
+    /**
+     * Builds the email telling the student about the grade of the course.
      *
      * @param event The event containing the grade and course information.
+     * @return The email.
      */
-    public void sendEmail(EnrollmentGradedEvent event) {
+    public SimpleMailMessage buildEmail(EnrollmentGradedEvent event) {
         String email = event.getStudentUsername() + "@fel.cvut.cz";
         String subject = "SIS - [SIS NOTIFICATION]";
         String body =
@@ -36,9 +96,14 @@ public class EmailService {
         message.setTo(email);
         message.setSubject(subject);
         message.setText(body);
-
-        javaMailSender.send(message);
-        log.info("Email sent to " + email);
+        return message;
     }
 
+    private static List<Integer> allPositions(List<SimpleMailMessage> messages) {
+        List<Integer> positions = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            positions.add(i);
+        }
+        return positions;
+    }
 }
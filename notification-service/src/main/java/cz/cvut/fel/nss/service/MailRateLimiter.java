@@ -0,0 +1,40 @@
+package cz.cvut.fel.nss.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces emails out evenly so that all mail workers together send at most the given number of emails per second.
+ * A rate of zero or less disables the limit.
+ */
+class MailRateLimiter {
+
+    private final long intervalNanos;
+    private long nextFreeNanos;
+
+    MailRateLimiter(double emailsPerSecond) {
+        this.intervalNanos = emailsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / emailsPerSecond) : 0L;
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    /**
+     * Blocks until the given number of emails may be sent.
+     *
+     * @param emails The number of emails about to be sent.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    void acquire(int emails) throws InterruptedException {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextFreeNanos);
+            nextFreeNanos = start + intervalNanos * emails;
+            waitNanos = start - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -67,9 +67,7 @@ public class DBInit {
 
             Semester nextSemester = adminService.createSemester(2025, SemesterType.FALL);
             Semester currentSemester = adminService.createSemester(2025, SemesterType.SPRING);
-            currentSemester.setIsActive(true);
-            semesterRepository.save(currentSemester);
-            semesterRepository.save(nextSemester);
+            adminService.setActiveSemester(currentSemester);
 
             Classroom classroom = classroomRepository.save(Classroom.builder().code("KN:E-127").capacity(50).build());
 
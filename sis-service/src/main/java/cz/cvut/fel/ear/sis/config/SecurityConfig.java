@@ -1,9 +1,11 @@
 package cz.cvut.fel.ear.sis.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import cz.cvut.fel.ear.sis.repository.PersonRepository;
 import cz.cvut.fel.ear.sis.security.AuthenticationFailure;
 import cz.cvut.fel.ear.sis.security.AuthenticationSuccess;
 import cz.cvut.fel.ear.sis.service.security.CustomUserDetailsService;
+import cz.cvut.fel.ear.sis.service.security.PasswordHashingService;
+import cz.cvut.fel.ear.sis.service.security.TokenService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,12 +21,11 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfiguration;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.DefaultSecurityFilterChain;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -38,7 +39,11 @@ public class SecurityConfig extends SecurityConfigurerAdapter<DefaultSecurityFil
 
     private final ObjectMapper objectMapper;
 
-    private final PersonRepository personRepository;
+    private final CustomUserDetailsService userDetailsService;
+
+    private final PasswordHashingService passwordHashingService;
+
+    private final TokenService tokenService;
 
     @Override
     public void configure(HttpSecurity http) throws Exception {
@@ -63,24 +68,17 @@ public class SecurityConfig extends SecurityConfigurerAdapter<DefaultSecurityFil
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsService(userDetailsService);
+        authProvider.setPasswordEncoder(passwordHashingService);
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
-    @Bean
-    public UserDetailsService userDetailsService() {
-        return new CustomUserDetailsService(personRepository);
-    }
-
-    public SecurityConfig(ObjectMapper objectMapper, PersonRepository personRepository) {
+    public SecurityConfig(ObjectMapper objectMapper, CustomUserDetailsService userDetailsService, PasswordHashingService passwordHashingService, ObjectProvider<TokenService> tokenService) {
         this.objectMapper = objectMapper;
-        this.personRepository = personRepository;
+        this.userDetailsService = userDetailsService;
+        this.passwordHashingService = passwordHashingService;
+        this.tokenService = tokenService.getIfAvailable();
     }
 
     @Bean
@@ -99,6 +97,14 @@ public class SecurityConfig extends SecurityConfigurerAdapter<DefaultSecurityFil
                     .permitAll())
 
             .logout(lgt -> lgt.logoutSuccessHandler(authSuccess));
+
+        if (tokenService != null) {
+            http.sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .securityContext(sc -> sc.securityContextRepository(new RequestAttributeSecurityContextRepository()))
+                .oauth2ResourceServer(rs -> rs.jwt(jwt -> jwt
+                        .decoder(tokenService.getDecoder())
+                        .jwtAuthenticationConverter(tokenService::toAuthentication)));
+        }
         return http.build();
     }
 
@@ -107,7 +113,7 @@ public class SecurityConfig extends SecurityConfigurerAdapter<DefaultSecurityFil
     }
 
     private AuthenticationSuccess authenticationSuccess() {
-        return new AuthenticationSuccess(objectMapper);
+        return new AuthenticationSuccess(objectMapper, tokenService);
     }
 
     private CorsConfigurationSource corsConfigurationSource() {
@@ -0,0 +1,45 @@
+package cz.cvut.fel.ear.sis.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in virtual-thread mode, enabled with sis.threads.virtual.enabled=true.
+ *
+ * Tomcat request handling and @Async work run on virtual threads, so handlers blocked on JDBC or on a call
+ * to enrollment-service no longer hold a platform thread. The database pool still bounds how many requests
+ * can use JDBC at once. Requires a Java 21 runtime.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sis.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${sis.threads.virtual.pinned-threshold-ms:20}") long pinnedThresholdMs) {
+        return new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(pinnedThresholdMs));
+    }
+}
@@ -1,12 +1,19 @@
 package cz.cvut.fel.ear.sis.config;
 
+import io.netty.channel.ChannelOption;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class WebClientConfig implements WebMvcConfigurer {
@@ -19,6 +26,52 @@ public class WebClientConfig implements WebMvcConfigurer {
         return WebClient.builder();
     }
 
+    /**
+     * Connection pool shared by all calls to enrollment-service.
+     * Pool metrics are published to Micrometer under reactor.netty.connection.provider.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider enrollmentServiceConnectionProvider(
+            @Value("${sis.enrollment-service.pool.max-connections:100}") int maxConnections,
+            @Value("${sis.enrollment-service.pool.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+            @Value("${sis.enrollment-service.pool.pending-acquire-timeout-ms:2000}") long pendingAcquireTimeoutMs,
+            @Value("${sis.enrollment-service.pool.max-idle-time-ms:30000}") long maxIdleTimeMs,
+            @Value("${sis.enrollment-service.pool.max-life-time-ms:300000}") long maxLifeTimeMs) {
+        return ConnectionProvider.builder("enrollment-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * Single load-balanced client for enrollment-service with keep-alive connections, timeouts and a response size limit.
+     */
+    @Bean
+    public WebClient enrollmentServiceWebClient(
+            WebClient.Builder webClientBuilder,
+            ConnectionProvider enrollmentServiceConnectionProvider,
+            @Value("${sis.enrollment-service.url:http://enrollment-service:8081}") String baseUrl,
+            @Value("${sis.enrollment-service.connect-timeout-ms:2000}") int connectTimeoutMs,
+            @Value("${sis.enrollment-service.response-timeout-ms:5000}") long responseTimeoutMs,
+            @Value("${sis.enrollment-service.max-in-memory-size-bytes:2097152}") int maxInMemorySize) {
+        HttpClient httpClient = HttpClient.create(enrollmentServiceConnectionProvider)
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                .metrics(true, uri -> "/enrollment");
+
+        return webClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxInMemorySize))
+                .build();
+    }
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(loggingInterceptor);
@@ -8,8 +8,12 @@ import lombok.Setter;
 @Getter
 @Setter
 public class EnrollmentDto {
+    private String id;
     private String course;
     private Grade grade;
     private Status status;
     private String teacherName;
+    private Long parallelId;
+    private String semester;
+    private long revision;
 }
@@ -0,0 +1,15 @@
+package cz.cvut.fel.ear.sis.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class KeysetPageDto<T> {
+    private List<T> items;
+    private Long nextCursor;
+}
@@ -0,0 +1,13 @@
+package cz.cvut.fel.ear.sis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class PersonImportErrorDto {
+    private int row;
+    private String message;
+}
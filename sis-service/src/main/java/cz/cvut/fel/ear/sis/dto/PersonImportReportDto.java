@@ -0,0 +1,16 @@
+package cz.cvut.fel.ear.sis.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class PersonImportReportDto {
+    private int totalRows;
+    private int imported;
+    private List<PersonImportErrorDto> errors;
+}
@@ -0,0 +1,16 @@
+package cz.cvut.fel.ear.sis.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Published when parallels shown in the course catalog change.
+ * A null semester code means the change can affect the catalog of every semester.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChangedEvent {
+    private String semesterCode;
+}
@@ -0,0 +1,16 @@
+package cz.cvut.fel.ear.sis.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Published when the username, password or role a person logs in with changes.
+ * Carries the username the person had before the change.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CredentialsChangedEvent {
+    private String userName;
+}
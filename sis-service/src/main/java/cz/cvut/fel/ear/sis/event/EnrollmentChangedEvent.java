@@ -0,0 +1,27 @@
+package cz.cvut.fel.ear.sis.event;
+
+import cz.cvut.fel.ear.sis.utils.enums.EnrollmentChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Change of one enrollment, published by enrollment-service on enrollmentTopic.
+ * The revision grows with every change of the enrollment, a change with a revision already applied is a duplicate.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentChangedEvent {
+    private String eventId;
+    private EnrollmentChangeType type;
+    private String enrollmentId;
+    private long revision;
+    private String studentUsername;
+    private String course;
+    private String teacherName;
+    private Long parallelId;
+    private String semester;
+    private String grade;
+    private String status;
+}
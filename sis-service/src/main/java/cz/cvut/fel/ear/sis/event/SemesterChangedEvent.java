@@ -0,0 +1,15 @@
+package cz.cvut.fel.ear.sis.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Published when a semester is created or the active semester changes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SemesterChangedEvent {
+    private String semesterCode;
+}
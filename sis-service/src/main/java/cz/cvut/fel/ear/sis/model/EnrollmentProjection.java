@@ -0,0 +1,53 @@
+package cz.cvut.fel.ear.sis.model;
+
+import cz.cvut.fel.ear.sis.utils.enums.Grade;
+import cz.cvut.fel.ear.sis.utils.enums.Status;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Local copy of one enrollment kept in enrollment-service, updated from {@link cz.cvut.fel.ear.sis.event.EnrollmentChangedEvent}.
+ * A deleted enrollment stays as a tombstone with its last revision, so a late duplicate of an older change cannot bring it back.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_enrollment_projection_student_username", columnList = "studentUsername")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class EnrollmentProjection {
+
+    @Id
+    private String enrollmentId;
+    @Column(nullable = false)
+    private String studentUsername;
+    private String course;
+    private String teacherName;
+    private Long parallelId;
+    private String semester;
+    @Enumerated(EnumType.STRING)
+    private Grade grade;
+    @Enumerated(EnumType.STRING)
+    private Status status;
+    @Column(nullable = false)
+    private long revision;
+    @Column(nullable = false)
+    private boolean deleted;
+    /**
+     * Set when enrollment-service did not return the enrollment during a reconcile. Unlike {@link #deleted} it keeps the
+     * revision, so the enrollment comes back as soon as a later reconcile or event reports it again.
+     */
+    @Column(nullable = false, columnDefinition = "boolean not null default false")
+    private boolean missing;
+    private LocalDateTime appliedAt;
+
+    public EnrollmentProjection(String enrollmentId, String studentUsername) {
+        this.enrollmentId = enrollmentId;
+        this.studentUsername = studentUsername;
+    }
+}
@@ -0,0 +1,30 @@
+package cz.cvut.fel.ear.sis.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks a student whose enrollments were copied from enrollment-service into {@link EnrollmentProjection}.
+ * Enrollments made before the projection existed are only known after this copy. The copy is repeated once it is
+ * older than sis.enrollment-projection.seed-ttl-seconds, which repairs changes whose events never arrived.
+ */
+@Entity
+@Getter
+@NoArgsConstructor
+public class EnrollmentProjectionSeed {
+
+    @Id
+    private String studentUsername;
+    @Column(nullable = false)
+    private LocalDateTime seededAt;
+
+    public EnrollmentProjectionSeed(String studentUsername) {
+        this.studentUsername = studentUsername;
+        this.seededAt = LocalDateTime.now();
+    }
+}
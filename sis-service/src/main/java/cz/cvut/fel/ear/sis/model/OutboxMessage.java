@@ -0,0 +1,51 @@
+package cz.cvut.fel.ear.sis.model;
+
+import cz.cvut.fel.ear.sis.utils.enums.OutboxOperation;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pending write to enrollment-service, stored in the same transaction as the change that caused it.
+ * A message that enrollment-service rejects or that runs out of attempts is kept as a dead letter with its last error.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_outbox_message_next_attempt_at", columnList = "nextAttemptAt"),
+        @Index(name = "idx_outbox_message_student_username", columnList = "studentUsername")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private OutboxOperation operation;
+    @Column(nullable = false, updatable = false)
+    private String studentUsername;
+    @Column(updatable = false)
+    private Long parallelId;
+    @Column(columnDefinition = "text", updatable = false)
+    private String payload;
+    @Column(nullable = false)
+    private int attempts;
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+    @Column(length = 1000)
+    private String lastError;
+    private LocalDateTime deadLetteredAt;
+
+}
@@ -12,10 +12,18 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
+@NamedEntityGraph(name = Parallel.LISTING_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "course", subgraph = "course.teacher"),
+                @NamedAttributeNode("classroom"),
+                @NamedAttributeNode("semester")
+        },
+        subgraphs = @NamedSubgraph(name = "course.teacher", attributeNodes = @NamedAttributeNode("teacher"))
+)
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
@@ -23,6 +31,11 @@ import java.util.List;
 @Builder
 public class Parallel {
 
+    /**
+     * Entity graph loading everything a parallel listing shows (course, teacher, classroom and semester) in one statement.
+     */
+    public static final String LISTING_GRAPH = "Parallel.listing";
+
     @Id
     @GeneratedValue
     private Long id;
@@ -47,22 +60,19 @@ public class Parallel {
     @ManyToOne(fetch = FetchType.LAZY)
     private Course course;
 
+    /**
+     * Read-only view of the enrolled students, rows are written through {@link ParallelMembership}.
+     * Hibernate rejects any change to the collection, so it can never rewrite parallel_student behind the membership rows.
+     */
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    @org.hibernate.annotations.Immutable
     @ManyToMany
     @JoinTable(name = "parallel_student",
             joinColumns = @JoinColumn(name = "parallel_id"),
             inverseJoinColumns = @JoinColumn(name = "student_id")
     )
-    private List<Student> students = new ArrayList<>();
-
-
-    public void addStudent(Student student){
-        students.add(student);
-    }
-
-    public void removeStudent(Student student){
-        students.remove(student);
-    }
+    @Builder.Default
+    private Set<Student> students = new HashSet<>();
 
     public String getTeacherFullName() {
         return this.getCourse().getTeacher().getFirstName() + " " + this.getCourse().getTeacher().getLastName();
@@ -0,0 +1,41 @@
+package cz.cvut.fel.ear.sis.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * One row of the parallel_student join table.
+ * Enrolling or dropping a student writes exactly this row instead of rewriting the whole {@link Parallel#getStudents()} collection.
+ * Lookups by parallel use the primary key, which starts with parallel_id, lookups by student use their own index.
+ */
+@Entity
+@Table(name = "parallel_student", indexes = {
+        @Index(name = "idx_parallel_student_student_id", columnList = "student_id")
+})
+@NoArgsConstructor
+public class ParallelMembership implements Persistable<ParallelMembershipId> {
+
+    @Getter
+    @EmbeddedId
+    private ParallelMembershipId id;
+
+    @Transient
+    private boolean isNew = true;
+
+    public ParallelMembership(Long parallelId, Long studentId) {
+        this.id = new ParallelMembershipId(parallelId, studentId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
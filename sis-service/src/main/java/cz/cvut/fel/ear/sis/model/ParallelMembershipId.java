@@ -0,0 +1,26 @@
+package cz.cvut.fel.ear.sis.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class ParallelMembershipId implements Serializable {
+
+    @Column(name = "parallel_id", nullable = false)
+    private Long parallelId;
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+}
@@ -1,14 +1,24 @@
 package cz.cvut.fel.ear.sis.repository;
 
 import cz.cvut.fel.ear.sis.model.Classroom;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ClassroomRepository extends JpaRepository<Classroom, Long> {
 
     Optional<Classroom> findClassroomByCode(String code);
 
+    List<Classroom> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Classroom> streamAllByOrderByIdAsc();
 }
@@ -0,0 +1,15 @@
+package cz.cvut.fel.ear.sis.repository;
+
+import cz.cvut.fel.ear.sis.model.EnrollmentProjection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EnrollmentProjectionRepository extends JpaRepository<EnrollmentProjection, String> {
+
+    List<EnrollmentProjection> findAllByStudentUsernameAndDeletedFalseAndMissingFalse(String studentUsername);
+
+    List<EnrollmentProjection> findAllByStudentUsername(String studentUsername);
+}
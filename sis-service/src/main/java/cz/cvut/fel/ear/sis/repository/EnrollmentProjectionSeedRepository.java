@@ -0,0 +1,9 @@
+package cz.cvut.fel.ear.sis.repository;
+
+import cz.cvut.fel.ear.sis.model.EnrollmentProjectionSeed;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EnrollmentProjectionSeedRepository extends JpaRepository<EnrollmentProjectionSeed, String> {
+}
@@ -0,0 +1,48 @@
+package cz.cvut.fel.ear.sis.repository;
+
+import cz.cvut.fel.ear.sis.model.OutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Locks the oldest messages that are due, skipping rows already locked by another replica.
+     * A message is only returned when no older undelivered message exists for the same student,
+     * so writes for one student reach enrollment-service in the order they were made.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM OutboxMessage m " +
+            "WHERE m.attempts < :maxAttempts " +
+            "AND m.deadLetteredAt IS NULL " +
+            "AND m.nextAttemptAt <= :now " +
+            "AND NOT EXISTS (SELECT o FROM OutboxMessage o " +
+            "WHERE o.studentUsername = m.studentUsername " +
+            "AND o.id < m.id " +
+            "AND o.attempts < :maxAttempts " +
+            "AND o.deadLetteredAt IS NULL) " +
+            "ORDER BY m.id")
+    List<OutboxMessage> findDueMessages(int maxAttempts, LocalDateTime now, Pageable pageable);
+
+    /**
+     * Moves the given messages out of reach of other publishers until the given time.
+     */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.nextAttemptAt = :until WHERE m.id IN :ids")
+    int claim(Collection<Long> ids, LocalDateTime until);
+
+    long countByDeadLetteredAtIsNotNull();
+}
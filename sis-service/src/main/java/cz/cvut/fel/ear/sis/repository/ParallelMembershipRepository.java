@@ -0,0 +1,24 @@
+package cz.cvut.fel.ear.sis.repository;
+
+import cz.cvut.fel.ear.sis.model.ParallelMembership;
+import cz.cvut.fel.ear.sis.model.ParallelMembershipId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ParallelMembershipRepository extends JpaRepository<ParallelMembership, ParallelMembershipId> {
+
+    @Query("SELECT COUNT(m) FROM ParallelMembership m " +
+            "WHERE m.id.parallelId = :parallelId"
+    )
+    long countByParallelId(Long parallelId);
+
+    @Modifying
+    @Query("DELETE FROM ParallelMembership m " +
+            "WHERE m.id.parallelId = :parallelId " +
+            "AND m.id.studentId = :studentId"
+    )
+    int deleteMembership(Long parallelId, Long studentId);
+}
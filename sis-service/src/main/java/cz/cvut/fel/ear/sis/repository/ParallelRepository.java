@@ -5,38 +5,61 @@ import cz.cvut.fel.ear.sis.model.Parallel;
 import cz.cvut.fel.ear.sis.model.Semester;
 import cz.cvut.fel.ear.sis.utils.enums.DayOfWeek;
 import cz.cvut.fel.ear.sis.utils.enums.TimeSlot;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ParallelRepository extends JpaRepository<Parallel, Long> {
 
+    @Override
+    @EntityGraph(Parallel.LISTING_GRAPH)
+    List<Parallel> findAll();
+
+    @Override
+    @EntityGraph(Parallel.LISTING_GRAPH)
+    List<Parallel> findAllById(Iterable<Long> ids);
+
     List<Parallel> findByClassroomAndSemesterAndDayOfWeekAndTimeSlot(Classroom classroom, Semester semester, DayOfWeek dayOfWeek, TimeSlot timeSlot);
 
+    @EntityGraph(Parallel.LISTING_GRAPH)
     List<Parallel> findAllBySemesterStartDate(LocalDate startDate);
 
+    @EntityGraph(Parallel.LISTING_GRAPH)
     List<Parallel> findAllByCourseId(Long id);
 
+    @EntityGraph(Parallel.LISTING_GRAPH)
     @Query( "SELECT p FROM Parallel p" +
             " WHERE p.course.code = :courseCode")
     List<Parallel> findAllByCourseCode(String courseCode);
 
+    @EntityGraph(Parallel.LISTING_GRAPH)
     @Query( "SELECT p FROM Parallel p " +
             "JOIN p.students s " +
             "WHERE s.id = :studentId " +
             "AND p.semester.code = :semesterCode")
     List<Parallel> findAllByStudentIdAndSemesterCode(long studentId, String semesterCode);
 
+    @EntityGraph(Parallel.LISTING_GRAPH)
     @Query("SELECT p FROM Parallel p " +
             "JOIN p.students s " +
             "WHERE s.userName = :studentUsername " +
             "AND p.semester.code = :semesterCode")
     List<Parallel> findAllByStudentUsernameAndSemesterCode(String studentUsername, String semesterCode);
 
+    @EntityGraph(Parallel.LISTING_GRAPH)
     @Query("SELECT p FROM Parallel p " +
             "JOIN p.students s " +
             "WHERE s.userName = :studentUsername "
@@ -50,4 +73,33 @@ public interface ParallelRepository extends JpaRepository<Parallel, Long> {
     )
     Parallel findByStudentUsernameAndCourseId(String studentUsername, Long courseId);
 
+    /**
+     * Locks the parallel until the current transaction ends, serializing enrollments into it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Parallel p WHERE p.id = :parallelId")
+    Optional<Parallel> lockById(Long parallelId);
+
+    /**
+     * Retrieves the number of free seats of a parallel, counted from the parallel_student rows alone.
+     */
+    @Query("SELECT p.capacity - (SELECT COUNT(m) FROM ParallelMembership m WHERE m.id.parallelId = p.id) " +
+            "FROM Parallel p " +
+            "WHERE p.id = :parallelId"
+    )
+    Optional<Long> findRemainingCapacityById(Long parallelId);
+
+    @Query("SELECT COUNT(s) > 0 FROM Parallel p " +
+            "JOIN p.students s " +
+            "WHERE p.id = :parallelId " +
+            "AND s.userName = :studentUsername"
+    )
+    boolean isStudentEnrolled(Long parallelId, String studentUsername);
+
+    @EntityGraph(Parallel.LISTING_GRAPH)
+    List<Parallel> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    @EntityGraph(Parallel.LISTING_GRAPH)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Parallel> streamAllByOrderByIdAsc();
 }
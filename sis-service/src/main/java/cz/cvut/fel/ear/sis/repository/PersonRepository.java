@@ -1,9 +1,18 @@
 package cz.cvut.fel.ear.sis.repository;
 
 import cz.cvut.fel.ear.sis.model.Person;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface PersonRepository extends JpaRepository<Person, Long> {
     boolean existsByEmail(String email);
@@ -11,4 +20,24 @@ public interface PersonRepository extends JpaRepository<Person, Long> {
     boolean existsByUserName(String userName);
 
     Person findByUserName(String userName);
+
+    @Query("SELECT p.userName FROM Person p " +
+            "WHERE p.userName LIKE CONCAT(:prefix, '%')"
+    )
+    List<String> findUserNamesStartingWith(String prefix);
+
+    @Query("SELECT p.email FROM Person p " +
+            "WHERE p.email IN :emails"
+    )
+    List<String> findExistingEmails(Collection<String> emails);
+
+    @Query("SELECT p.phoneNumber FROM Person p " +
+            "WHERE p.phoneNumber IN :phoneNumbers"
+    )
+    List<String> findExistingPhoneNumbers(Collection<String> phoneNumbers);
+
+    List<Person> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Person> streamAllByOrderByIdAsc();
 }
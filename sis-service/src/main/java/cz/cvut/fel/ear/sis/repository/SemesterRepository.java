@@ -1,14 +1,25 @@
 package cz.cvut.fel.ear.sis.repository;
 
 import cz.cvut.fel.ear.sis.model.Semester;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface SemesterRepository extends JpaRepository<Semester, Long> {
     Optional<Semester> findSemesterByCode(String code);
 
     Optional<Semester> findSemesterByIsActiveIsTrue();
+
+    List<Semester> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Semester> streamAllByOrderByIdAsc();
 }
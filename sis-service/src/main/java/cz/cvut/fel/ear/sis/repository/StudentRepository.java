@@ -1,8 +1,21 @@
 package cz.cvut.fel.ear.sis.repository;
 
 import cz.cvut.fel.ear.sis.model.Student;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface StudentRepository extends JpaRepository<Student, Long> {
-    Optional<Student> findByUserName(String username);}
+    Optional<Student> findByUserName(String username);
+
+    List<Student> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Student> streamAllByOrderByIdAsc();
+}
@@ -1,6 +1,8 @@
 package cz.cvut.fel.ear.sis.rest;
 
 import cz.cvut.fel.ear.sis.dto.ClassroomDto;
+import cz.cvut.fel.ear.sis.dto.KeysetPageDto;
+import cz.cvut.fel.ear.sis.dto.PersonImportReportDto;
 import cz.cvut.fel.ear.sis.dto.SemesterDto;
 import cz.cvut.fel.ear.sis.model.Classroom;
 import cz.cvut.fel.ear.sis.model.Semester;
@@ -8,8 +10,12 @@ import cz.cvut.fel.ear.sis.rest.dto.CreateClassroomRequestBody;
 import cz.cvut.fel.ear.sis.rest.dto.CreateSemesterRequestBody;
 import cz.cvut.fel.ear.sis.rest.handler.utils.RestUtils;
 import cz.cvut.fel.ear.sis.service.AdminServiceImpl;
+import cz.cvut.fel.ear.sis.service.ListingService;
+import cz.cvut.fel.ear.sis.service.PersonImportService;
 import cz.cvut.fel.ear.sis.utils.exception.ClassroomException;
 import cz.cvut.fel.ear.sis.utils.exception.SemesterException;
+import cz.cvut.fel.ear.sis.utils.exception.rest.NotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,21 +26,91 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/rest/admin")
 public class AdminController {
     private final AdminServiceImpl adminServiceImpl;
+    private final PersonImportService personImportService;
+    private final ListingService listingService;
     private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
 
     @Autowired
-    public AdminController(AdminServiceImpl adminServiceImpl){
+    public AdminController(AdminServiceImpl adminServiceImpl, PersonImportService personImportService, ListingService listingService){
         this.adminServiceImpl = adminServiceImpl;
+        this.personImportService = personImportService;
+        this.listingService = listingService;
+    }
+
+    /**
+     * Retrieves one page of a listing (people, students, courses, parallels, semesters or classrooms), ordered by ID.
+     *
+     * @param name  The name of the listing.
+     * @param after The nextCursor of the previous page, omitted for the first page.
+     * @param size  The maximum number of rows on the page.
+     * @return A ResponseEntity containing the page and the cursor of the next page.
+     * @throws NotFoundException If there is no listing with such name.
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping(value = "/listing/{name}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<KeysetPageDto<?>> getListingPage(@PathVariable String name,
+                                                           @RequestParam(required = false) Long after,
+                                                           @RequestParam(defaultValue = "100") int size) throws NotFoundException {
+        return ResponseEntity.ok(listingService.getPage(name, after, size));
+    }
+
+    /**
+     * Streams a whole listing as newline-delimited JSON.
+     *
+     * @param name The name of the listing.
+     * @return A ResponseEntity streaming one JSON object per line.
+     * @throws NotFoundException If there is no listing with such name.
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping(value = "/listing/{name}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportListing(@PathVariable String name) throws NotFoundException {
+        Consumer<OutputStream> exporter = listingService.exporter(name);
+        StreamingResponseBody body = exporter::accept;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Imports people from a CSV upload.
+     *
+     * @param request The request whose body is the CSV, starting with a header row.
+     * @return A ResponseEntity containing the import report with per-row errors.
+     * @throws IOException If the upload cannot be read.
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/person/import", consumes = "text/csv", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PersonImportReportDto> importPeopleFromCsv(HttpServletRequest request) throws IOException {
+        PersonImportReportDto report = personImportService.importCsv(request.getInputStream());
+        logger.info("Imported {} of {} people from CSV.", report.getImported(), report.getTotalRows());
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Imports people from a JSON array upload.
+     *
+     * @param request The request whose body is a JSON array of people.
+     * @return A ResponseEntity containing the import report with per-row errors.
+     * @throws IOException If the upload cannot be read.
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/person/import", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PersonImportReportDto> importPeopleFromJson(HttpServletRequest request) throws IOException {
+        PersonImportReportDto report = personImportService.importJson(request.getInputStream());
+        logger.info("Imported {} of {} people from JSON.", report.getImported(), report.getTotalRows());
+        return ResponseEntity.ok(report);
     }
 
     /**
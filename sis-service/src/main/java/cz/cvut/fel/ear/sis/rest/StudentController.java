@@ -4,6 +4,8 @@ package cz.cvut.fel.ear.sis.rest;
 import cz.cvut.fel.ear.sis.dto.EnrollmentDto;
 import cz.cvut.fel.ear.sis.dto.ParallelDto;
 import cz.cvut.fel.ear.sis.model.Parallel;
+import cz.cvut.fel.ear.sis.rest.dto.EnrollScheduleRequestBody;
+import cz.cvut.fel.ear.sis.service.CourseCatalogCache;
 import cz.cvut.fel.ear.sis.service.StudentServiceImpl;
 import cz.cvut.fel.ear.sis.service.TeacherServiceImpl;
 import cz.cvut.fel.ear.sis.utils.exception.*;
@@ -48,15 +50,14 @@ public class StudentController {
      */
     @PreAuthorize("hasRole('ROLE_STUDENT')")
     @GetMapping(value = "/course/next", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<ParallelDto>> listCoursesForNextSemester() throws ParallelException, SemesterException {
-        List<Parallel> parallels = studentServiceImpl.getAllParallelsForNextSemester();
-        List<ParallelDto> parallelDtos = teacherServiceImpl.mapParallelsToDto(parallels);
+    public ResponseEntity<byte[]> listCoursesForNextSemester() throws ParallelException, SemesterException {
+        CourseCatalogCache.Catalog catalog = studentServiceImpl.getCourseCatalogForNextSemester();
 
-        if (parallels.isEmpty()) {
+        if (catalog.getParallels().isEmpty()) {
             throw new ParallelException("No parallels found for the next semester.");
         }
 
-        return new ResponseEntity<>(parallelDtos, HttpStatus.OK);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(catalog.getJson());
     }
 
     /**
@@ -68,14 +69,13 @@ public class StudentController {
      */
     @PreAuthorize("hasRole('ROLE_STUDENT')")
     @GetMapping(value = "/course/current", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<ParallelDto>> listCoursesForCurrentSemester() throws ParallelException, SemesterException {
-        List<Parallel> parallels = studentServiceImpl.getAllParallelsForCurrentSemester();
-        List<ParallelDto> parallelDtos = teacherServiceImpl.mapParallelsToDto(parallels);
+    public ResponseEntity<byte[]> listCoursesForCurrentSemester() throws ParallelException, SemesterException {
+        CourseCatalogCache.Catalog catalog = studentServiceImpl.getCourseCatalogForCurrentSemester();
 
-        if(parallels.isEmpty()){
+        if(catalog.getParallels().isEmpty()){
             throw new ParallelException("No parallels found for the next semester.");
         }
-        return new ResponseEntity<>(parallelDtos, HttpStatus.OK);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(catalog.getJson());
     }
 
     /**
@@ -180,6 +180,28 @@ public class StudentController {
         logger.debug("Enrolled student {} in parallel {} for the next semester.", user.getUsername(), parallelId);
     }
 
+    /**
+     * Enrolls the student in a whole schedule of parallels for the next semester in one request.
+     * Either all parallels are enrolled or none is.
+     *
+     * @param requestBody The IDs of the parallels to enroll in.
+     * @param auth        The student's authentication details.
+     * @throws EnrollmentException If the schedule is not valid.
+     * @throws ParallelException   If a parallel is invalid or full.
+     * @throws StudentException    If the student data is invalid.
+     * @throws SemesterException   If the semester data is invalid.
+     */
+    @PreAuthorize("hasRole('ROLE_STUDENT')")
+    @PostMapping(value = "/enroll", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void enrollInScheduleNextSemester(@RequestBody EnrollScheduleRequestBody requestBody, Authentication auth) throws EnrollmentException, ParallelException, StudentException, SemesterException {
+        User user = (User) auth.getPrincipal();
+        List<Long> parallelIds = requestBody.parallelIds == null ? List.of() : requestBody.parallelIds;
+        studentServiceImpl.enrollToParallelsByUsername(user.getUsername(), parallelIds);
+
+        logger.debug("Enrolled student {} in parallels {} for the next semester.", user.getUsername(), parallelIds);
+    }
+
     /**
      * Cancels the student's enrollment in a specific parallel for the next semester.
      *
@@ -0,0 +1,7 @@
+package cz.cvut.fel.ear.sis.rest.dto;
+
+import java.util.List;
+
+public class EnrollScheduleRequestBody {
+    public List<Long> parallelIds;
+}
@@ -16,4 +16,6 @@ public class EnrollmentRequest {
     String grade;
 
     Long parallelId;
+
+    String semester;
 }
@@ -3,10 +3,12 @@ package cz.cvut.fel.ear.sis.security;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import cz.cvut.fel.ear.sis.security.model.LoginStatus;
+import cz.cvut.fel.ear.sis.service.security.TokenService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
@@ -20,8 +22,19 @@ public class AuthenticationSuccess implements AuthenticationSuccessHandler, Logo
 
     private final ObjectMapper mapper;
 
+    private final TokenService tokenService;
+
     public AuthenticationSuccess(ObjectMapper mapper) {
+        this(mapper, null);
+    }
+
+    /**
+     * @param mapper       Writes the login status.
+     * @param tokenService Issues the access token returned in the Authorization header, null when sessions are used.
+     */
+    public AuthenticationSuccess(ObjectMapper mapper, TokenService tokenService) {
         this.mapper = mapper;
+        this.tokenService = tokenService;
     }
 
     @Override
@@ -31,6 +44,9 @@ public class AuthenticationSuccess implements AuthenticationSuccessHandler, Logo
         if (LOG.isTraceEnabled()) {
             LOG.trace("Successfully authenticated user {}", username);
         }
+        if (tokenService != null) {
+            httpServletResponse.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + tokenService.issue(authentication));
+        }
         final LoginStatus loginStatus = new LoginStatus(true, authentication.isAuthenticated(), username, null);
         mapper.writeValue(httpServletResponse.getOutputStream(), loginStatus);
     }
@@ -0,0 +1,139 @@
+package cz.cvut.fel.ear.sis.service;
+
+import cz.cvut.fel.ear.sis.event.SemesterChangedEvent;
+import cz.cvut.fel.ear.sis.model.Semester;
+import cz.cvut.fel.ear.sis.repository.SemesterRepository;
+import cz.cvut.fel.ear.sis.utils.enums.SemesterType;
+import org.apache.kafka.common.KafkaException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory snapshot of the active semester and the semester following it.
+ *
+ * The snapshot is loaded on first use and swapped atomically after a {@link SemesterChangedEvent} commits.
+ * The change is broadcast on semesterTopic, every sis-service replica listens with its own consumer group
+ * and reloads its snapshot. A missing active semester is never cached.
+ * The returned semesters are shared between threads and must not be modified.
+ */
+@Service
+public class ActiveSemesterHolder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveSemesterHolder.class);
+    private static final String SEMESTER_TOPIC = "semesterTopic";
+
+    private final SemesterRepository semesterRepository;
+    private final KafkaTemplate<String, SemesterChangedEvent> kafkaTemplate;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public ActiveSemesterHolder(SemesterRepository semesterRepository, KafkaTemplate kafkaTemplate) {
+        this.semesterRepository = semesterRepository;
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    /**
+     * Retrieves the active semester.
+     *
+     * @return Optional containing the active Semester if there is one, otherwise empty.
+     */
+    public Optional<Semester> getActiveSemester() {
+        return currentSnapshot().map(Snapshot::active);
+    }
+
+    /**
+     * Retrieves the semester following the active one.
+     *
+     * @return Optional containing the next Semester if it exists, otherwise empty.
+     */
+    public Optional<Semester> getNextSemester() {
+        return currentSnapshot().map(Snapshot::next);
+    }
+
+    /**
+     * Returns the code of the semester following the given one.
+     *
+     * @param semester The semester.
+     * @return Code of the next semester.
+     */
+    public static String nextSemesterCode(Semester semester) {
+        int year = semester.getStartDate().getYear();
+        return semester.getSemesterType() == SemesterType.SPRING
+                ? SemesterType.FALL.name() + year
+                : SemesterType.SPRING.name() + (year + 1);
+    }
+
+    /**
+     * Reloads the snapshot after a semester change commits and tells the other replicas to do the same.
+     *
+     * @param event The change of the semesters.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSemesterChanged(SemesterChangedEvent event) {
+        refresh();
+        try {
+            kafkaTemplate.send(SEMESTER_TOPIC, event).whenComplete((result, e) -> {
+                if (e != null) {
+                    logger.warn("Semester change {} could not be broadcast to other replicas", event.getSemesterCode(), e);
+                }
+            });
+        } catch (KafkaException e) {
+            logger.warn("Semester change {} could not be broadcast to other replicas", event.getSemesterCode(), e);
+        }
+    }
+
+    /**
+     * Reloads the snapshot when another replica changed the semesters.
+     */
+    @KafkaListener(topics = SEMESTER_TOPIC,
+            groupId = "sis-semester-#{T(java.util.UUID).randomUUID()}",
+            properties = {
+                    "key.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "value.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "auto.offset.reset=latest"
+            })
+    public void onRemoteSemesterChanged(String message) {
+        refresh();
+        logger.debug("Active semester reloaded after remote change {}", message);
+    }
+
+    /**
+     * Drops the current snapshot and loads a fresh one.
+     */
+    public void refresh() {
+        generation.incrementAndGet();
+        snapshot.set(null);
+        currentSnapshot();
+    }
+
+    private Optional<Snapshot> currentSnapshot() {
+        Snapshot current = snapshot.get();
+        if (current != null) {
+            return Optional.of(current);
+        }
+
+        long loadedGeneration = generation.get();
+        Optional<Snapshot> loaded = semesterRepository.findSemesterByIsActiveIsTrue()
+                .map(active -> new Snapshot(active, semesterRepository.findSemesterByCode(nextSemesterCode(active)).orElse(null)));
+        loaded.ifPresent(fresh -> {
+            if (snapshot.compareAndSet(null, fresh) && generation.get() != loadedGeneration) {
+                snapshot.compareAndSet(fresh, null);
+            }
+        });
+        return loaded;
+    }
+
+    private record Snapshot(Semester active, Semester next) {
+    }
+}
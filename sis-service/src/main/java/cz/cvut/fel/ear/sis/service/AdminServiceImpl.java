@@ -2,6 +2,7 @@ package cz.cvut.fel.ear.sis.service;
 
 import cz.cvut.fel.ear.sis.dto.ClassroomDto;
 import cz.cvut.fel.ear.sis.dto.SemesterDto;
+import cz.cvut.fel.ear.sis.event.SemesterChangedEvent;
 import cz.cvut.fel.ear.sis.model.Classroom;
 import cz.cvut.fel.ear.sis.model.Semester;
 import cz.cvut.fel.ear.sis.model.Student;
@@ -14,6 +15,7 @@ import cz.cvut.fel.ear.sis.utils.exception.ClassroomException;
 import cz.cvut.fel.ear.sis.utils.exception.SemesterException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -25,11 +27,15 @@ public class AdminServiceImpl implements AdminService {
 
     private final SemesterRepository semesterRepository;
     private final ClassroomRepository classroomRepository;
+    private final ActiveSemesterHolder activeSemesterHolder;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public AdminServiceImpl(SemesterRepository semesterRepository, ClassroomRepository classroomRepository) {
+    public AdminServiceImpl(SemesterRepository semesterRepository, ClassroomRepository classroomRepository, ActiveSemesterHolder activeSemesterHolder, ApplicationEventPublisher eventPublisher) {
         this.semesterRepository = semesterRepository;
         this.classroomRepository = classroomRepository;
+        this.activeSemesterHolder = activeSemesterHolder;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -46,6 +52,7 @@ public class AdminServiceImpl implements AdminService {
             throw new SemesterException("Semester already exists");
         Semester semester = new Semester(year, semesterType);
         semesterRepository.save(semester);
+        eventPublisher.publishEvent(new SemesterChangedEvent(semester.getCode()));
         return semester;
     }
 
@@ -72,13 +79,13 @@ public class AdminServiceImpl implements AdminService {
     }
 
     /**
-     * Retrieves the active Semester.
+     * Retrieves the active Semester from {@link ActiveSemesterHolder}.
+     * The returned Semester is shared and must not be modified.
      *
      * @return Optional containing the active Semester object if found, otherwise empty.
      */
-    @Transactional
     public Optional<Semester> getActiveSemester(){
-        return semesterRepository.findSemesterByIsActiveIsTrue();
+        return activeSemesterHolder.getActiveSemester();
     }
 
     /**
@@ -88,15 +95,13 @@ public class AdminServiceImpl implements AdminService {
      */
     @Transactional
     public void setActiveSemester(Semester semester){
-        Optional<Semester> activeSemester = getActiveSemester();
-        boolean activeSemesterExists = activeSemester.isPresent();
-        if (activeSemesterExists){
-            Semester active = getActiveSemester().get();
+        semesterRepository.findSemesterByIsActiveIsTrue().ifPresent(active -> {
             active.setIsActive(false);
             semesterRepository.save(active);
-        }
+        });
         semester.setIsActive(true);
         semesterRepository.save(semester);
+        eventPublisher.publishEvent(new SemesterChangedEvent(semester.getCode()));
     }
 
     /**
@@ -0,0 +1,148 @@
+package cz.cvut.fel.ear.sis.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.cvut.fel.ear.sis.dto.ParallelDto;
+import cz.cvut.fel.ear.sis.event.CatalogChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.kafka.common.KafkaException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Course catalog per semester code, kept as ready-made DTOs together with their serialized JSON.
+ *
+ * Entries are evicted after a {@link CatalogChangedEvent} commits. The change is broadcast on catalogTopic, every
+ * sis-service replica listens with its own consumer group and evicts the same catalogs. A catalog loaded while an
+ * eviction happened is returned to its caller but not stored, so a stale listing never outlives the change that
+ * replaced it.
+ */
+@Service
+public class CourseCatalogCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseCatalogCache.class);
+    private static final String CATALOG_TOPIC = "catalogTopic";
+
+    private final ObjectMapper objectMapper;
+    private final KafkaTemplate<String, CatalogChangedEvent> kafkaTemplate;
+    private final Map<String, Catalog> catalogs = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public CourseCatalogCache(ObjectMapper objectMapper, MeterRegistry meterRegistry, KafkaTemplate kafkaTemplate) {
+        this.objectMapper = objectMapper;
+        this.kafkaTemplate = kafkaTemplate;
+        this.hits = Counter.builder("sis.catalog.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("sis.catalog.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("sis.catalog.cache.evictions").register(meterRegistry);
+        Gauge.builder("sis.catalog.cache.size", catalogs, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Retrieves the catalog of a semester, loading it on a miss.
+     *
+     * @param semesterCode The code of the semester.
+     * @param loader       Loads the parallels of the semester.
+     * @return The catalog of the semester.
+     */
+    public Catalog get(String semesterCode, Supplier<List<ParallelDto>> loader) {
+        Catalog catalog = catalogs.get(semesterCode);
+        if (catalog != null) {
+            hits.increment();
+            return catalog;
+        }
+        misses.increment();
+
+        long loadedGeneration = generation.get();
+        List<ParallelDto> parallels = List.copyOf(loader.get());
+        Catalog loaded = new Catalog(parallels, toJson(parallels));
+        catalogs.compute(semesterCode, (code, current) -> generation.get() == loadedGeneration ? loaded : current);
+        return loaded;
+    }
+
+    /**
+     * Evicts the changed catalogs once the transaction that changed them commits and tells the other replicas to do
+     * the same.
+     *
+     * @param event The change of the catalog.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        evict(event.getSemesterCode());
+        try {
+            kafkaTemplate.send(CATALOG_TOPIC, event).whenComplete((result, e) -> {
+                if (e != null) {
+                    logger.warn("Catalog change {} could not be broadcast to other replicas", event.getSemesterCode(), e);
+                }
+            });
+        } catch (KafkaException e) {
+            logger.warn("Catalog change {} could not be broadcast to other replicas", event.getSemesterCode(), e);
+        }
+    }
+
+    /**
+     * Evicts the changed catalogs when another replica changed them. An unreadable change evicts every catalog.
+     */
+    @KafkaListener(topics = CATALOG_TOPIC,
+            groupId = "sis-catalog-#{T(java.util.UUID).randomUUID()}",
+            properties = {
+                    "key.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "value.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "auto.offset.reset=latest"
+            })
+    public void onRemoteCatalogChanged(String message) {
+        String semesterCode;
+        try {
+            semesterCode = objectMapper.readValue(message, CatalogChangedEvent.class).getSemesterCode();
+        } catch (JsonProcessingException e) {
+            logger.warn("Evicting every catalog after unreadable remote change {}", message, e);
+            semesterCode = null;
+        }
+        evict(semesterCode);
+        logger.debug("Course catalog evicted after remote change {}", message);
+    }
+
+    private void evict(String semesterCode) {
+        generation.incrementAndGet();
+        if (semesterCode == null) {
+            evictions.increment(catalogs.size());
+            catalogs.clear();
+        } else if (catalogs.remove(semesterCode) != null) {
+            evictions.increment();
+        }
+    }
+
+    private byte[] toJson(List<ParallelDto> parallels) {
+        try {
+            return objectMapper.writeValueAsBytes(parallels);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Course catalog could not be serialized", e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Catalog {
+        private final List<ParallelDto> parallels;
+        private final byte[] json;
+    }
+}
@@ -0,0 +1,249 @@
+package cz.cvut.fel.ear.sis.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.cvut.fel.ear.sis.model.OutboxMessage;
+import cz.cvut.fel.ear.sis.repository.OutboxMessageRepository;
+import cz.cvut.fel.ear.sis.rest.dto.EnrollmentRequest;
+import cz.cvut.fel.ear.sis.utils.enums.OutboxOperation;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transactional outbox for writes to enrollment-service.
+ *
+ * Services enqueue a message inside their own transaction, so the HTTP request commits locally and returns
+ * without waiting for enrollment-service. A scheduled publisher then delivers the messages in order per student.
+ *
+ * Due messages are claimed in a short transaction that pushes their next attempt past the time a whole batch may
+ * take, so no row lock is held while enrollment-service is called and no other replica picks the same messages.
+ * A delivered message is deleted. A message that fails for a temporary reason is retried with exponential backoff.
+ * A message that enrollment-service rejects with a 4xx status, or that reaches the attempt limit, is kept as a dead
+ * letter: it is no longer delivered, it is logged, and the number of dead letters is reported as sis.outbox.dead.letters.
+ */
+@Service
+public class EnrollmentOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentOutboxService.class);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final WebClient enrollmentServiceWebClient;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration requestTimeout;
+    private final Duration claimTimeout;
+
+    @Autowired
+    public EnrollmentOutboxService(OutboxMessageRepository outboxMessageRepository,
+                                   @Qualifier("enrollmentServiceWebClient") WebClient enrollmentServiceWebClient,
+                                   ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${sis.outbox.batch-size:50}") int batchSize,
+                                   @Value("${sis.outbox.max-attempts:10}") int maxAttempts,
+                                   @Value("${sis.outbox.retry-backoff-ms:2000}") long retryBackoffMs,
+                                   @Value("${sis.outbox.request-timeout-ms:5000}") long requestTimeoutMs) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.enrollmentServiceWebClient = enrollmentServiceWebClient;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.claimTimeout = requestTimeout.multipliedBy(batchSize).plus(retryBackoff);
+        Gauge.builder("sis.outbox.dead.letters", outboxMessageRepository, OutboxMessageRepository::countByDeadLetteredAtIsNotNull)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enqueues creation of an enrollment.
+     *
+     * @param username          The username of the student.
+     * @param enrollmentRequest The enrollment to create.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueCreate(String username, EnrollmentRequest enrollmentRequest) {
+        enqueue(OutboxOperation.CREATE_ENROLLMENT, username, enrollmentRequest.getParallelId(), enrollmentRequest);
+    }
+
+    /**
+     * Enqueues creation of several enrollments of one student, delivered to enrollment-service in a single request.
+     *
+     * @param username           The username of the student.
+     * @param enrollmentRequests The enrollments to create.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueCreateBatch(String username, List<EnrollmentRequest> enrollmentRequests) {
+        enqueue(OutboxOperation.CREATE_ENROLLMENT_BATCH, username, null, enrollmentRequests);
+    }
+
+    /**
+     * Enqueues grading of an enrollment.
+     *
+     * @param username          The username of the student.
+     * @param enrollmentRequest The request containing the grade and the teacher name.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueGrade(String username, EnrollmentRequest enrollmentRequest) {
+        enqueue(OutboxOperation.GRADE_ENROLLMENT, username, enrollmentRequest.getParallelId(), enrollmentRequest);
+    }
+
+    /**
+     * Enqueues removal of an enrollment.
+     *
+     * @param username   The username of the student.
+     * @param parallelId The ID of the parallel the student was dropped from.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueDelete(String username, Long parallelId) {
+        enqueue(OutboxOperation.DELETE_ENROLLMENT, username, parallelId, null);
+    }
+
+    /**
+     * Delivers due messages to enrollment-service, one claimed batch at a time.
+     */
+    @Scheduled(fixedDelayString = "${sis.outbox.poll-interval-ms:1000}")
+    public void publishPending() {
+        List<OutboxMessage> messages;
+        do {
+            messages = claimBatch();
+            messages.forEach(this::publish);
+        } while (messages.size() == batchSize);
+    }
+
+    /**
+     * Claims due messages, at most one per student since a message waits for all older messages of its student.
+     */
+    private List<OutboxMessage> claimBatch() {
+        List<OutboxMessage> messages = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> due = outboxMessageRepository.findDueMessages(maxAttempts, now, PageRequest.ofSize(batchSize));
+            if (!due.isEmpty()) {
+                outboxMessageRepository.claim(due.stream().map(OutboxMessage::getId).toList(), now.plus(claimTimeout));
+            }
+            return due;
+        });
+        return messages == null ? List.of() : messages;
+    }
+
+    private void publish(OutboxMessage message) {
+        try {
+            deliver(message);
+            outboxMessageRepository.deleteById(message.getId());
+        } catch (WebClientResponseException e) {
+            if (e.getStatusCode().is4xxClientError()) {
+                deadLetter(message, e, message.getAttempts() + 1);
+            } else {
+                markFailed(message, e);
+            }
+        } catch (RuntimeException e) {
+            markFailed(message, e);
+        }
+    }
+
+    private void deliver(OutboxMessage message) {
+        switch (message.getOperation()) {
+            case CREATE_ENROLLMENT -> enrollmentServiceWebClient.post()
+                    .uri("/enrollment/{username}", message.getStudentUsername())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(message.getPayload())
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block(requestTimeout);
+            case CREATE_ENROLLMENT_BATCH -> enrollmentServiceWebClient.post()
+                    .uri("/enrollment/{username}/batch", message.getStudentUsername())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(message.getPayload())
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block(requestTimeout);
+            case GRADE_ENROLLMENT -> enrollmentServiceWebClient.post()
+                    .uri("/enrollment/grade/{username}", message.getStudentUsername())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(message.getPayload())
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block(requestTimeout);
+            case DELETE_ENROLLMENT -> enrollmentServiceWebClient.delete()
+                    .uri("/enrollment/{username}/{parallelId}", message.getStudentUsername(), message.getParallelId())
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block(requestTimeout);
+        }
+    }
+
+    private void markFailed(OutboxMessage message, RuntimeException e) {
+        int attempts = message.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            deadLetter(message, e, attempts);
+            return;
+        }
+        long backoffMillis = retryBackoff.toMillis() << Math.min(attempts - 1, 10);
+        message.setAttempts(attempts);
+        message.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoffMillis)));
+        message.setLastError(abbreviate(e.getMessage()));
+        outboxMessageRepository.save(message);
+        logger.warn("Delivery of outbox message {} ({} for {}) failed, attempt {}: {}", message.getId(), message.getOperation(), message.getStudentUsername(), attempts, e.getMessage());
+    }
+
+    private void deadLetter(OutboxMessage message, RuntimeException e, int attempts) {
+        message.setAttempts(attempts);
+        message.setLastError(abbreviate(e.getMessage()));
+        message.setDeadLetteredAt(LocalDateTime.now());
+        outboxMessageRepository.save(message);
+        logger.error("Outbox message {} ({} for {}) moved to dead letters after {} attempts, sis-service and enrollment-service now differ for this student",
+                message.getId(), message.getOperation(), message.getStudentUsername(), attempts, e);
+    }
+
+    private void enqueue(OutboxOperation operation, String username, Long parallelId, Object body) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxMessage message = OutboxMessage.builder()
+                .operation(operation)
+                .studentUsername(username)
+                .parallelId(parallelId)
+                .payload(body == null ? null : toJson(body))
+                .attempts(0)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build();
+        outboxMessageRepository.save(message);
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Outbox payload could not be serialized", e);
+        }
+    }
+
+    private static String abbreviate(String message) {
+        if (message == null || message.length() <= 1000) {
+            return message;
+        }
+        return message.substring(0, 1000);
+    }
+}
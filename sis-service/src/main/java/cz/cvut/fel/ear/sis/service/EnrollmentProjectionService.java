@@ -0,0 +1,224 @@
+package cz.cvut.fel.ear.sis.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.cvut.fel.ear.sis.dto.EnrollmentDto;
+import cz.cvut.fel.ear.sis.event.EnrollmentChangedEvent;
+import cz.cvut.fel.ear.sis.model.EnrollmentProjection;
+import cz.cvut.fel.ear.sis.model.EnrollmentProjectionSeed;
+import cz.cvut.fel.ear.sis.repository.EnrollmentProjectionRepository;
+import cz.cvut.fel.ear.sis.repository.EnrollmentProjectionSeedRepository;
+import cz.cvut.fel.ear.sis.utils.enums.EnrollmentChangeType;
+import cz.cvut.fel.ear.sis.utils.enums.Grade;
+import cz.cvut.fel.ear.sis.utils.enums.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Read model of student enrollments, kept in the sis-service database so enrollment reports need no call to
+ * enrollment-service.
+ *
+ * The projection follows enrollmentTopic, where enrollment-service publishes an {@link EnrollmentChangedEvent} for
+ * every change. All sis-service replicas share one consumer group, so each change is applied once. A change is only
+ * applied when its revision is newer than the stored one, which makes redelivered and duplicate events harmless.
+ * Enrollments made before the projection existed are copied from enrollment-service the first time a student
+ * asks for the report. The copy expires after sis.enrollment-projection.seed-ttl-seconds; the next report then
+ * reconciles the projection with enrollment-service, so a change whose event was lost is repaired within the TTL.
+ * While enrollment-service is down, reports are served from whatever the projection holds.
+ */
+@Service
+public class EnrollmentProjectionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentProjectionService.class);
+
+    static final String ENROLLMENT_TOPIC = "enrollmentTopic";
+
+    private final EnrollmentProjectionRepository projectionRepository;
+    private final EnrollmentProjectionSeedRepository seedRepository;
+    private final WebClient enrollmentServiceWebClient;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration seedTtl;
+
+    @Autowired
+    public EnrollmentProjectionService(EnrollmentProjectionRepository projectionRepository,
+                                       EnrollmentProjectionSeedRepository seedRepository,
+                                       @Qualifier("enrollmentServiceWebClient") WebClient enrollmentServiceWebClient,
+                                       ObjectMapper objectMapper,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${sis.enrollment-projection.seed-ttl-seconds:3600}") long seedTtlSeconds) {
+        this.projectionRepository = projectionRepository;
+        this.seedRepository = seedRepository;
+        this.enrollmentServiceWebClient = enrollmentServiceWebClient;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.seedTtl = Duration.ofSeconds(seedTtlSeconds);
+    }
+
+    /**
+     * Retrieves the enrollments of a student from the projection.
+     *
+     * @param username The username of the student.
+     * @return List of enrollments of the student.
+     */
+    public List<EnrollmentDto> getEnrollmentsByUsername(String username) {
+        boolean seeded = seedRepository.findById(username)
+                .map(seed -> seed.getSeededAt().isAfter(LocalDateTime.now().minus(seedTtl)))
+                .orElse(false);
+        if (!seeded) {
+            seed(username);
+        }
+        return projectionRepository.findAllByStudentUsernameAndDeletedFalseAndMissingFalse(username).stream()
+                .map(this::mapProjectionToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Applies a change published by enrollment-service.
+     *
+     * @param message The change as JSON.
+     */
+    @KafkaListener(topics = ENROLLMENT_TOPIC,
+            groupId = "sis-enrollment-projection",
+            properties = {
+                    "key.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "value.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "auto.offset.reset=earliest"
+            })
+    public void onEnrollmentChanged(String message) {
+        EnrollmentChangedEvent event;
+        try {
+            event = objectMapper.readValue(message, EnrollmentChangedEvent.class);
+        } catch (JsonProcessingException e) {
+            logger.error("Skipping unreadable enrollment change {}", message, e);
+            return;
+        }
+        if (event.getEnrollmentId() == null || event.getStudentUsername() == null || event.getType() == null) {
+            logger.error("Skipping incomplete enrollment change {}", message);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> apply(event));
+    }
+
+    private void apply(EnrollmentChangedEvent event) {
+        Optional<EnrollmentProjection> existing = projectionRepository.findById(event.getEnrollmentId());
+        if (existing.isPresent() && isApplied(existing.get(), event.getRevision())) {
+            logger.debug("Skipping enrollment change {} with revision {}, revision {} already applied",
+                    event.getEventId(), event.getRevision(), existing.get().getRevision());
+            return;
+        }
+        EnrollmentProjection projection = existing
+                .orElseGet(() -> new EnrollmentProjection(event.getEnrollmentId(), event.getStudentUsername()));
+        projection.setRevision(event.getRevision());
+        projection.setDeleted(event.getType() == EnrollmentChangeType.DELETED);
+        projection.setMissing(false);
+        projection.setCourse(event.getCourse());
+        projection.setTeacherName(event.getTeacherName());
+        projection.setParallelId(event.getParallelId());
+        projection.setSemester(event.getSemester());
+        projection.setGrade(event.getGrade() == null ? null : Grade.valueOf(event.getGrade()));
+        projection.setStatus(event.getStatus() == null ? null : Status.valueOf(event.getStatus()));
+        projection.setAppliedAt(LocalDateTime.now());
+        projectionRepository.save(projection);
+    }
+
+    /**
+     * Copies the enrollments of a student from enrollment-service. Enrollments missing from the projection are added,
+     * enrollments with a newer revision overwrite the projected ones, and projected enrollments enrollment-service no
+     * longer has are marked missing, unless an event touched them after the copy was requested. A missing enrollment
+     * keeps its revision and is shown again once a later copy or event reports it.
+     */
+    private void seed(String username) {
+        LocalDateTime requestedAt = LocalDateTime.now();
+        List<EnrollmentDto> enrollments;
+        try {
+            enrollments = enrollmentServiceWebClient.get()
+                    .uri("/enrollment/{username}", username)
+                    .retrieve()
+                    .bodyToFlux(EnrollmentDto.class)
+                    .collectList()
+                    .block();
+        } catch (WebClientException e) {
+            logger.warn("Could not copy enrollments of {} from enrollment-service, serving the projection as it is", username, e);
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<String, EnrollmentProjection> projected = projectionRepository.findAllByStudentUsername(username).stream()
+                        .collect(Collectors.toMap(EnrollmentProjection::getEnrollmentId, projection -> projection));
+                for (EnrollmentDto enrollment : enrollments) {
+                    if (enrollment.getId() == null) {
+                        continue;
+                    }
+                    EnrollmentProjection projection = projected.remove(enrollment.getId());
+                    if (projection != null && isApplied(projection, enrollment.getRevision())) {
+                        continue;
+                    }
+                    if (projection == null) {
+                        projection = new EnrollmentProjection(enrollment.getId(), username);
+                    }
+                    projection.setRevision(enrollment.getRevision());
+                    projection.setDeleted(false);
+                    projection.setMissing(false);
+                    projection.setCourse(enrollment.getCourse());
+                    projection.setTeacherName(enrollment.getTeacherName());
+                    projection.setParallelId(enrollment.getParallelId());
+                    projection.setSemester(enrollment.getSemester());
+                    projection.setGrade(enrollment.getGrade());
+                    projection.setStatus(enrollment.getStatus());
+                    projection.setAppliedAt(LocalDateTime.now());
+                    projectionRepository.save(projection);
+                }
+                for (EnrollmentProjection projection : projected.values()) {
+                    if (!projection.isDeleted() && !projection.isMissing()
+                            && (projection.getAppliedAt() == null || projection.getAppliedAt().isBefore(requestedAt))) {
+                        projection.setMissing(true);
+                        projectionRepository.save(projection);
+                    }
+                }
+                seedRepository.save(new EnrollmentProjectionSeed(username));
+            });
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Enrollments of {} were copied concurrently, copying again on the next request", username, e);
+        }
+    }
+
+    /**
+     * Tells whether the projection already holds the given revision. A projection marked missing by a reconcile
+     * takes the same revision again, so an enrollment that was only absent from one answer is restored.
+     */
+    private static boolean isApplied(EnrollmentProjection projection, long revision) {
+        return projection.getRevision() > revision || (projection.getRevision() == revision && !projection.isMissing());
+    }
+
+    private EnrollmentDto mapProjectionToDto(EnrollmentProjection projection) {
+        EnrollmentDto dto = new EnrollmentDto();
+        dto.setId(projection.getEnrollmentId());
+        dto.setCourse(projection.getCourse());
+        dto.setGrade(projection.getGrade());
+        dto.setStatus(projection.getStatus());
+        dto.setTeacherName(projection.getTeacherName());
+        dto.setParallelId(projection.getParallelId());
+        dto.setSemester(projection.getSemester());
+        dto.setRevision(projection.getRevision());
+        return dto;
+    }
+}
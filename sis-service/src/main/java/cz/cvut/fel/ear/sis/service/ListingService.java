@@ -0,0 +1,183 @@
+package cz.cvut.fel.ear.sis.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import cz.cvut.fel.ear.sis.dto.KeysetPageDto;
+import cz.cvut.fel.ear.sis.model.Classroom;
+import cz.cvut.fel.ear.sis.model.Course;
+import cz.cvut.fel.ear.sis.model.Parallel;
+import cz.cvut.fel.ear.sis.model.Person;
+import cz.cvut.fel.ear.sis.model.Semester;
+import cz.cvut.fel.ear.sis.model.Student;
+import cz.cvut.fel.ear.sis.repository.ClassroomRepository;
+import cz.cvut.fel.ear.sis.repository.CourseRepository;
+import cz.cvut.fel.ear.sis.repository.ParallelRepository;
+import cz.cvut.fel.ear.sis.repository.PersonRepository;
+import cz.cvut.fel.ear.sis.repository.SemesterRepository;
+import cz.cvut.fel.ear.sis.repository.StudentRepository;
+import cz.cvut.fel.ear.sis.utils.exception.rest.NotFoundException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Admin listings of whole tables, served as keyset pages or as an NDJSON stream.
+ *
+ * A page is the rows with an ID greater than the cursor, ordered by ID, so a cursor stays valid while rows are
+ * inserted or deleted and no page needs an OFFSET scan. The stream reads rows through a database cursor in one
+ * read-only transaction and clears the persistence context after every chunk, so an export of any size runs in
+ * constant memory.
+ */
+@Service
+public class ListingService {
+
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Map<String, Listing<?>> listings;
+    private final int maxPageSize;
+    private final int exportChunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ListingService(PersonRepository personRepository,
+                          StudentRepository studentRepository,
+                          CourseRepository courseRepository,
+                          ParallelRepository parallelRepository,
+                          SemesterRepository semesterRepository,
+                          ClassroomRepository classroomRepository,
+                          PersonServiceImpl personServiceImpl,
+                          TeacherServiceImpl teacherServiceImpl,
+                          AdminServiceImpl adminServiceImpl,
+                          ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${sis.listing.max-page-size:1000}") int maxPageSize,
+                          @Value("${sis.listing.export-chunk-size:500}") int exportChunkSize) {
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxPageSize = maxPageSize;
+        this.exportChunkSize = exportChunkSize;
+        this.listings = Map.of(
+                "people", new Listing<Person>(personRepository::findByIdGreaterThanOrderByIdAsc, personRepository::streamAllByOrderByIdAsc,
+                        Person::getId, personServiceImpl::mapPeopleToDto),
+                "students", new Listing<Student>(studentRepository::findByIdGreaterThanOrderByIdAsc, studentRepository::streamAllByOrderByIdAsc,
+                        Student::getId, personServiceImpl::mapPeopleToDto),
+                "courses", new Listing<Course>(courseRepository::findByIdGreaterThanOrderByIdAsc, courseRepository::streamAllByOrderByIdAsc,
+                        Course::getId, teacherServiceImpl::mapCoursesToDto),
+                "parallels", new Listing<Parallel>(parallelRepository::findByIdGreaterThanOrderByIdAsc, parallelRepository::streamAllByOrderByIdAsc,
+                        Parallel::getId, teacherServiceImpl::mapParallelsToDto),
+                "semesters", new Listing<Semester>(semesterRepository::findByIdGreaterThanOrderByIdAsc, semesterRepository::streamAllByOrderByIdAsc,
+                        Semester::getId, adminServiceImpl::mapSemestersToDto),
+                "classrooms", new Listing<Classroom>(classroomRepository::findByIdGreaterThanOrderByIdAsc, classroomRepository::streamAllByOrderByIdAsc,
+                        Classroom::getId, adminServiceImpl::mapClassroomsToDto));
+    }
+
+    /**
+     * Retrieves one page of a listing.
+     *
+     * @param name  The name of the listing, e.g. people or parallels.
+     * @param after The cursor returned with the previous page, null for the first page.
+     * @param size  The maximum number of rows on the page.
+     * @return The page with the cursor of the next page, the cursor is null on the last page.
+     * @throws NotFoundException If there is no listing with such name.
+     */
+    public KeysetPageDto<?> getPage(String name, Long after, int size) throws NotFoundException {
+        Listing<?> listing = getListing(name);
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        return readOnlyTransaction.execute(status -> listing.page(after == null ? 0L : after, pageSize));
+    }
+
+    /**
+     * Prepares an export of a whole listing as newline-delimited JSON, one row per line.
+     * The rows are read only when the returned exporter is run.
+     *
+     * @param name The name of the listing, e.g. people or parallels.
+     * @return Exporter writing the listing to the given stream.
+     * @throws NotFoundException If there is no listing with such name.
+     */
+    public Consumer<OutputStream> exporter(String name) throws NotFoundException {
+        Listing<?> listing = getListing(name);
+        return out -> readOnlyTransaction.executeWithoutResult(status -> listing.export(out));
+    }
+
+    private Listing<?> getListing(String name) throws NotFoundException {
+        Listing<?> listing = listings.get(name);
+        if (listing == null) {
+            throw new NotFoundException("Listing " + name + " does not exist.");
+        }
+        return listing;
+    }
+
+    private final class Listing<E> {
+        private final BiFunction<Long, Pageable, List<E>> pageQuery;
+        private final Supplier<Stream<E>> streamQuery;
+        private final Function<E, Long> id;
+        private final Function<List<E>, List<?>> mapper;
+
+        private Listing(BiFunction<Long, Pageable, List<E>> pageQuery, Supplier<Stream<E>> streamQuery,
+                        Function<E, Long> id, Function<List<E>, ? extends List<?>> mapper) {
+            this.pageQuery = pageQuery;
+            this.streamQuery = streamQuery;
+            this.id = id;
+            this.mapper = mapper::apply;
+        }
+
+        private KeysetPageDto<Object> page(long after, int size) {
+            List<E> rows = pageQuery.apply(after, PageRequest.of(0, size));
+            Long nextCursor = rows.size() < size ? null : id.apply(rows.get(rows.size() - 1));
+            return KeysetPageDto.<Object>builder()
+                    .items(new ArrayList<>(mapper.apply(rows)))
+                    .nextCursor(nextCursor)
+                    .build();
+        }
+
+        private void export(OutputStream out) {
+            ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            List<E> chunk = new ArrayList<>(exportChunkSize);
+            try (Stream<E> rows = streamQuery.get()) {
+                rows.forEachOrdered(row -> {
+                    chunk.add(row);
+                    if (chunk.size() == exportChunkSize) {
+                        writeChunk(writer, chunk, out);
+                    }
+                });
+            }
+            writeChunk(writer, chunk, out);
+        }
+
+        private void writeChunk(ObjectWriter writer, List<E> chunk, OutputStream out) {
+            try {
+                for (Object dto : mapper.apply(chunk)) {
+                    out.write(writer.writeValueAsBytes(dto));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            chunk.clear();
+            entityManager.clear();
+        }
+    }
+}
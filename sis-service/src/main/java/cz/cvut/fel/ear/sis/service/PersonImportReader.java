@@ -0,0 +1,202 @@
+package cz.cvut.fel.ear.sis.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.cvut.fel.ear.sis.rest.dto.CreatePersonRequestBody;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads people to import one row at a time, so an upload is never held in memory as a whole.
+ *
+ * CSV input starts with a header naming the columns of {@link CreatePersonRequestBody}; values are separated
+ * by commas and must not contain them. JSON input is an array of {@link CreatePersonRequestBody} objects.
+ * A row that cannot be read is returned with an error instead of a body.
+ */
+public abstract class PersonImportReader implements Iterator<PersonImportReader.Row>, Closeable {
+
+    private static final List<String> CSV_COLUMNS = List.of("firstName", "lastName", "email", "phoneNumber", "birthDate", "password", "roleKeypass");
+
+    private Row nextRow;
+
+    /**
+     * Creates a reader of CSV input.
+     *
+     * @param input The CSV input.
+     * @return Reader of the rows.
+     * @throws IOException If the header cannot be read or misses a column.
+     */
+    public static PersonImportReader csv(InputStream input) throws IOException {
+        return new CsvReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Creates a reader of a JSON array.
+     *
+     * @param input        The JSON input.
+     * @param objectMapper Mapper used to read the rows.
+     * @return Reader of the rows.
+     * @throws IOException If the input does not start with an array.
+     */
+    public static PersonImportReader json(InputStream input, ObjectMapper objectMapper) throws IOException {
+        return new JsonReader(objectMapper.getFactory().createParser(input), objectMapper);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextRow == null) {
+            try {
+                nextRow = readRow();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return nextRow != null;
+    }
+
+    @Override
+    public Row next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Row row = nextRow;
+        nextRow = null;
+        return row;
+    }
+
+    /**
+     * Reads the next row.
+     *
+     * @return The next row, or null at the end of the input.
+     * @throws IOException If the input cannot be read.
+     */
+    protected abstract Row readRow() throws IOException;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Row {
+        private final int number;
+        private final CreatePersonRequestBody body;
+        private final String error;
+    }
+
+    private static final class CsvReader extends PersonImportReader {
+        private final BufferedReader reader;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private int lineNumber;
+
+        private CsvReader(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IOException("CSV header is missing");
+            }
+            String[] names = header.split(",", -1);
+            for (int i = 0; i < names.length; i++) {
+                columns.put(names[i].trim().toLowerCase(Locale.ROOT), i);
+            }
+            for (String column : CSV_COLUMNS) {
+                if (!columns.containsKey(column.toLowerCase(Locale.ROOT))) {
+                    throw new IOException("CSV header misses column " + column);
+                }
+            }
+            lineNumber = 1;
+        }
+
+        @Override
+        protected Row readRow() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                lineNumber++;
+            } while (line.isBlank());
+
+            String[] values = line.split(",", -1);
+            if (values.length < columns.size()) {
+                return new Row(lineNumber, null, "Row has " + values.length + " values, expected " + columns.size());
+            }
+            CreatePersonRequestBody body = new CreatePersonRequestBody();
+            body.firstName = value(values, "firstName");
+            body.lastName = value(values, "lastName");
+            body.email = value(values, "email");
+            body.phoneNumber = value(values, "phoneNumber");
+            body.password = value(values, "password");
+            body.roleKeypass = value(values, "roleKeypass");
+            try {
+                body.birthDate = LocalDate.parse(value(values, "birthDate"));
+            } catch (DateTimeParseException e) {
+                return new Row(lineNumber, null, "Birth date is not valid.");
+            }
+            return new Row(lineNumber, body, null);
+        }
+
+        private String value(String[] values, String column) {
+            return values[columns.get(column.toLowerCase(Locale.ROOT))].trim();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class JsonReader extends PersonImportReader {
+        private final JsonParser parser;
+        private final ObjectMapper objectMapper;
+        private int index;
+
+        private JsonReader(JsonParser parser, ObjectMapper objectMapper) throws IOException {
+            this.parser = parser;
+            this.objectMapper = objectMapper;
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("JSON import must be an array of people");
+            }
+        }
+
+        @Override
+        protected Row readRow() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            index++;
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return new Row(index, null, "Row is not an object");
+            }
+            JsonNode node = objectMapper.readTree(parser);
+            try {
+                return new Row(index, objectMapper.treeToValue(node, CreatePersonRequestBody.class), null);
+            } catch (JsonProcessingException e) {
+                return new Row(index, null, "Row could not be read: " + e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package cz.cvut.fel.ear.sis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.cvut.fel.ear.sis.dto.PersonImportErrorDto;
+import cz.cvut.fel.ear.sis.dto.PersonImportReportDto;
+import cz.cvut.fel.ear.sis.model.Person;
+import cz.cvut.fel.ear.sis.repository.PersonRepository;
+import cz.cvut.fel.ear.sis.rest.dto.CreatePersonRequestBody;
+import cz.cvut.fel.ear.sis.service.security.PasswordHashingService;
+import cz.cvut.fel.ear.sis.utils.exception.PersonException;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk import of people for the start of the academic year.
+ *
+ * Rows are streamed from the upload and handled in chunks: the format of every row is validated, emails and phone
+ * numbers are checked against the database with one query per chunk, usernames are allocated in memory and
+ * passwords are hashed on the import's own bounded worker pool, apart from the pool serving logins. Each chunk is
+ * then stored in its own transaction with JDBC batch inserts. When a chunk cannot be stored, e.g. because a person
+ * with the same email was created meanwhile, its rows are stored one by one so only the conflicting rows fail.
+ * A row that fails does not stop the import, it is listed in the report with its error.
+ */
+@Service
+public class PersonImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonImportService.class);
+
+    private final PersonServiceImpl personServiceImpl;
+    private final PersonRepository personRepository;
+    private final UsernameAllocator usernameAllocator;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService hashingPool;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public PersonImportService(PersonServiceImpl personServiceImpl,
+                               PersonRepository personRepository,
+                               UsernameAllocator usernameAllocator,
+                               PasswordHashingService passwordHashingService,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${sis.import.batch-size:500}") int batchSize,
+                               @Value("${sis.import.hashing-threads:4}") int hashingThreads) {
+        this.personServiceImpl = personServiceImpl;
+        this.personRepository = personRepository;
+        this.usernameAllocator = usernameAllocator;
+        this.passwordEncoder = passwordHashingService.unpooled();
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hashingPool = Executors.newFixedThreadPool(hashingThreads);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports people from CSV.
+     *
+     * @param input CSV with a header row naming the columns.
+     * @return Report of the import.
+     * @throws IOException If the input cannot be read.
+     */
+    public PersonImportReportDto importCsv(InputStream input) throws IOException {
+        try (PersonImportReader reader = PersonImportReader.csv(input)) {
+            return importPeople(reader);
+        }
+    }
+
+    /**
+     * Imports people from a JSON array.
+     *
+     * @param input JSON array of people.
+     * @return Report of the import.
+     * @throws IOException If the input cannot be read.
+     */
+    public PersonImportReportDto importJson(InputStream input) throws IOException {
+        try (PersonImportReader reader = PersonImportReader.json(input, objectMapper)) {
+            return importPeople(reader);
+        }
+    }
+
+    private PersonImportReportDto importPeople(PersonImportReader reader) {
+        ImportState state = new ImportState(usernameAllocator.newSession());
+        List<PersonImportReader.Row> chunk = new ArrayList<>(batchSize);
+        int totalRows = 0;
+
+        while (reader.hasNext()) {
+            chunk.add(reader.next());
+            totalRows++;
+            if (chunk.size() == batchSize) {
+                importChunk(chunk, state);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, state);
+        }
+
+        state.errors.sort(Comparator.comparingInt(PersonImportErrorDto::getRow));
+        logger.info("Imported {} of {} people", state.imported, totalRows);
+        return PersonImportReportDto.builder()
+                .totalRows(totalRows)
+                .imported(state.imported)
+                .errors(state.errors)
+                .build();
+    }
+
+    private void importChunk(List<PersonImportReader.Row> chunk, ImportState state) {
+        List<PersonImportReader.Row> valid = new ArrayList<>();
+        for (PersonImportReader.Row row : chunk) {
+            if (row.getError() != null) {
+                state.fail(row, row.getError());
+                continue;
+            }
+            CreatePersonRequestBody body = row.getBody();
+            try {
+                personServiceImpl.checkThatDetailsHaveValidFormat(body.firstName, body.lastName, body.email, body.phoneNumber, body.birthDate, body.password);
+            } catch (PersonException e) {
+                state.fail(row, e.getMessage());
+                continue;
+            }
+            valid.add(row);
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        Set<String> existingEmails = new HashSet<>(personRepository.findExistingEmails(valid.stream().map(row -> row.getBody().email).toList()));
+        Set<String> existingPhoneNumbers = new HashSet<>(personRepository.findExistingPhoneNumbers(valid.stream().map(row -> row.getBody().phoneNumber).toList()));
+
+        List<PersonImportReader.Row> rows = new ArrayList<>();
+        List<Person> people = new ArrayList<>();
+        for (PersonImportReader.Row row : valid) {
+            CreatePersonRequestBody body = row.getBody();
+            if (existingEmails.contains(body.email)) {
+                state.fail(row, "Account with that email already exists.");
+                continue;
+            }
+            if (existingPhoneNumbers.contains(body.phoneNumber)) {
+                state.fail(row, "Account with that phone number already exists.");
+                continue;
+            }
+            Integer emailRow = state.queuedEmails.get(body.email);
+            if (emailRow != null) {
+                state.fail(row, "Email is already used by row " + emailRow + ".");
+                continue;
+            }
+            Integer phoneNumberRow = state.queuedPhoneNumbers.get(body.phoneNumber);
+            if (phoneNumberRow != null) {
+                state.fail(row, "Phone number is already used by row " + phoneNumberRow + ".");
+                continue;
+            }
+            try {
+                String userName = state.usernames.allocate(body.firstName.toLowerCase(), body.lastName.toLowerCase());
+                people.add(personServiceImpl.newPerson(body.roleKeypass, body.firstName, body.lastName, body.email, body.phoneNumber, body.birthDate, userName, null));
+                rows.add(row);
+                state.queue(row);
+            } catch (PersonException e) {
+                state.fail(row, e.getMessage());
+            }
+        }
+
+        hashPasswords(rows, people, state);
+        store(rows, people, state);
+    }
+
+    private void hashPasswords(List<PersonImportReader.Row> rows, List<Person> people, ImportState state) {
+        List<Future<String>> hashes = new ArrayList<>(rows.size());
+        for (PersonImportReader.Row row : rows) {
+            String password = row.getBody().password;
+            hashes.add(hashingPool.submit(() -> passwordEncoder.encode(password)));
+        }
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            try {
+                people.get(i).setPassword(hashes.get(i).get());
+            } catch (ExecutionException e) {
+                PersonImportReader.Row row = rows.remove(i);
+                state.unqueue(row);
+                state.fail(row, "Password could not be hashed.");
+                people.remove(i);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import was interrupted", e);
+            }
+        }
+    }
+
+    private void store(List<PersonImportReader.Row> rows, List<Person> people, ImportState state) {
+        if (people.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                personRepository.saveAll(people);
+                entityManager.flush();
+                entityManager.clear();
+            });
+            state.imported += people.size();
+        } catch (DataAccessException e) {
+            logger.warn("Import chunk of {} people could not be stored, storing its rows one by one", people.size(), e);
+            for (int i = 0; i < people.size(); i++) {
+                storeOne(rows.get(i), people.get(i), state);
+            }
+        }
+    }
+
+    private void storeOne(PersonImportReader.Row row, Person person, ImportState state) {
+        person.setId(null);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                personRepository.save(person);
+                entityManager.flush();
+                entityManager.clear();
+            });
+            state.imported++;
+        } catch (DataAccessException e) {
+            state.unqueue(row);
+            state.fail(row, describeConflict(person, e));
+        }
+    }
+
+    private String describeConflict(Person person, DataAccessException e) {
+        if (!personRepository.findExistingEmails(List.of(person.getEmail())).isEmpty()) {
+            return "Account with that email already exists.";
+        }
+        if (!personRepository.findExistingPhoneNumbers(List.of(person.getPhoneNumber())).isEmpty()) {
+            return "Account with that phone number already exists.";
+        }
+        if (personRepository.existsByUserName(person.getUserName())) {
+            return "Username " + person.getUserName() + " was taken meanwhile.";
+        }
+        return "Row could not be stored: " + e.getMostSpecificCause().getMessage();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdown();
+    }
+
+    private static final class ImportState {
+        private final UsernameAllocator.Session usernames;
+        private final Map<String, Integer> queuedEmails = new HashMap<>();
+        private final Map<String, Integer> queuedPhoneNumbers = new HashMap<>();
+        private final List<PersonImportErrorDto> errors = new ArrayList<>();
+        private int imported;
+
+        private ImportState(UsernameAllocator.Session usernames) {
+            this.usernames = usernames;
+        }
+
+        /**
+         * Records the email and phone number of a row queued for insert, so later rows cannot reuse them.
+         */
+        private void queue(PersonImportReader.Row row) {
+            queuedEmails.put(row.getBody().email, row.getNumber());
+            queuedPhoneNumbers.put(row.getBody().phoneNumber, row.getNumber());
+        }
+
+        /**
+         * Releases the email and phone number of a queued row that was rejected after all.
+         */
+        private void unqueue(PersonImportReader.Row row) {
+            queuedEmails.remove(row.getBody().email, row.getNumber());
+            queuedPhoneNumbers.remove(row.getBody().phoneNumber, row.getNumber());
+        }
+
+        private void fail(PersonImportReader.Row row, String message) {
+            errors.add(new PersonImportErrorDto(row.getNumber(), message));
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package cz.cvut.fel.ear.sis.service;
 
+import cz.cvut.fel.ear.sis.dto.PersonDto;
+import cz.cvut.fel.ear.sis.event.CatalogChangedEvent;
+import cz.cvut.fel.ear.sis.event.CredentialsChangedEvent;
 import cz.cvut.fel.ear.sis.model.*;
 import cz.cvut.fel.ear.sis.repository.AdminRepository;
 import cz.cvut.fel.ear.sis.repository.PersonRepository;
@@ -10,7 +13,8 @@ import cz.cvut.fel.ear.sis.utils.enums.Role;
 import cz.cvut.fel.ear.sis.utils.exception.PersonException;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,9 +22,9 @@ import java.time.LocalDate;
 import java.time.Period;
 import java.util.List;
 import java.util.Optional;
-import java.util.Random;
+import java.util.stream.Collectors;
 
-import static cz.cvut.fel.ear.sis.utils.ServiceUtil.doesNotConformRegex;
+import static cz.cvut.fel.ear.sis.utils.ServiceUtil.*;
 
 @Service
 public class PersonServiceImpl implements PersonService {
@@ -29,17 +33,21 @@ public class PersonServiceImpl implements PersonService {
     private final PersonRepository personRepository;
     private final StudentRepository studentRepository;
     private final TeacherRepository teacherRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UsernameAllocator usernameAllocator;
+    private final PasswordEncoder passwordEncoder;
 
     @Autowired
-    public PersonServiceImpl(AdminRepository adminRepository, PersonRepository personRepository, StudentRepository studentRepository, TeacherRepository teacherRepository) {
+    public PersonServiceImpl(AdminRepository adminRepository, PersonRepository personRepository, StudentRepository studentRepository, TeacherRepository teacherRepository, ApplicationEventPublisher eventPublisher, UsernameAllocator usernameAllocator, PasswordEncoder passwordEncoder) {
         this.adminRepository = adminRepository;
         this.personRepository = personRepository;
         this.studentRepository = studentRepository;
         this.teacherRepository = teacherRepository;
+        this.eventPublisher = eventPublisher;
+        this.usernameAllocator = usernameAllocator;
+        this.passwordEncoder = passwordEncoder;
     }
 
-    BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-
     /**
      * Creates a new person with the provided details based on the role specified.
      *
@@ -62,19 +70,44 @@ public class PersonServiceImpl implements PersonService {
                                    String password,
                                    String roleKeypass) throws PersonException {
         checkThatDetailsAreValid(firstName, lastName, email, phoneNumber, birthDate, password);
-        String userName = generateUniqueUserName(firstName.toLowerCase(), lastName.toLowerCase());
-        Person person = switch (roleKeypass) {
+        String userName = usernameAllocator.allocate(firstName.toLowerCase(), lastName.toLowerCase());
+        Person person = newPerson(roleKeypass, firstName, lastName, email, phoneNumber, birthDate, userName, passwordEncoder.encode(password));
+
+        personRepository.save(person);
+        return person;
+    }
+
+    /**
+     * Instantiates a person of the role given by the key pass, without storing it.
+     *
+     * @param roleKeypass     The key pass to determine the role of the person.
+     * @param firstName       The first name of the person.
+     * @param lastName        The last name of the person.
+     * @param email           The email address of the person.
+     * @param phoneNumber     The phone number of the person.
+     * @param birthDate       The birth date of the person.
+     * @param userName        The username of the person.
+     * @param encodedPassword The already hashed password of the person.
+     * @return The new person object.
+     * @throws PersonException If the key pass is invalid.
+     */
+    public Person newPerson(String roleKeypass,
+                            String firstName,
+                            String lastName,
+                            String email,
+                            String phoneNumber,
+                            LocalDate birthDate,
+                            String userName,
+                            String encodedPassword) throws PersonException {
+        return switch (roleKeypass == null ? "" : roleKeypass) {
             case "studentKeyPass" ->
-                    new Student(firstName, lastName, email, phoneNumber, birthDate, userName, passwordEncoder.encode(password));
+                    new Student(firstName, lastName, email, phoneNumber, birthDate, userName, encodedPassword);
             case "teacherKeyPass" ->
-                    new Teacher(firstName, lastName, email, phoneNumber, birthDate, userName, passwordEncoder.encode(password));
+                    new Teacher(firstName, lastName, email, phoneNumber, birthDate, userName, encodedPassword);
             case "adminKeyPass" ->
-                    new Admin(firstName, lastName, email, phoneNumber, birthDate, userName, passwordEncoder.encode(password));
+                    new Admin(firstName, lastName, email, phoneNumber, birthDate, userName, encodedPassword);
             default -> throw new PersonException("KeyPass is not valid");
         };
-
-        personRepository.save(person);
-        return person;
     }
 
     /**
@@ -108,10 +141,35 @@ public class PersonServiceImpl implements PersonService {
         Person person = personRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Person not found with id: " + id));
         checkThatNameIsValid(firstName, lastName);
+        String oldUserName = person.getUserName();
         person.setFirstName(firstName);
         person.setLastName(lastName);
-        person.setUserName(generateUniqueUserName(firstName, lastName));
+        person.setUserName(usernameAllocator.allocate(firstName, lastName));
         personRepository.save(person);
+        eventPublisher.publishEvent(new CredentialsChangedEvent(oldUserName));
+        if (person instanceof Teacher)
+            eventPublisher.publishEvent(new CatalogChangedEvent(null));
+    }
+
+    /**
+     * Converts a list of people to a list of person DTOs.
+     *
+     * @param people The list of people to map.
+     * @return List of person DTOs.
+     */
+    public List<PersonDto> mapPeopleToDto(List<? extends Person> people){
+        return people.stream()
+                .map(person -> PersonDto.builder()
+                        .id(person.getId())
+                        .firstName(person.getFirstName())
+                        .lastName(person.getLastName())
+                        .email(person.getEmail())
+                        .phoneNumber(person.getPhoneNumber())
+                        .birthDate(person.getBirthDate())
+                        .userName(person.getUserName())
+                        .role(person.getRole())
+                        .build())
+                .collect(Collectors.toList());
     }
 
     /**
@@ -185,80 +243,25 @@ public class PersonServiceImpl implements PersonService {
     }
 
     /**
-     * Generates a unique username based on the provided first and last names.
-     *
-     * @param firstName The first name of the user.
-     * @param lastName  The last name of the user.
-     * @return A unique username.
-     */
-    private String generateUniqueUserName(String firstName, String lastName) {
-        firstName = firstName.replace(" ", "");
-        lastName = lastName.replace(" ", "");
-        String username;
-
-        if (lastName.length() < 5) {
-            username = lastName;
-            if (firstName.length() < (8 - username.length())) {
-                username += firstName;
-                username += generateRandomNDigitNumber(8 - username.length());
-            } else {
-                username += firstName.substring(0, 8 - username.length());
-            }
-        } else {
-            username = lastName.substring(0, 5);
-            if (firstName.length() < 3) {
-                username += firstName;
-                username += generateRandomNDigitNumber(3 - username.length());
-            } else {
-                username += firstName.substring(0, 3);
-            }
-        }
-
-        if (personRepository.existsByUserName(username)) {
-            username = modifyUsername(username);
-        }
-
-        return username;
-    }
-
-    /**
-     * Modifies the username to ensure its uniqueness.
-     *
-     * @param username The base username to modify.
-     * @return A unique username.
-     */
-    private String modifyUsername(String username) {
-        String baseUsername = username.substring(0, username.length() - 1);
-        char lastChar = username.charAt(username.length() - 1);
-
-        if (Character.isLetter(lastChar)) {
-            baseUsername += generateRandomNDigitNumber(1);
-        } else {
-            int num = Character.getNumericValue(lastChar) + 1;
-            baseUsername += num;
-        }
-
-        if (personRepository.existsByUserName(baseUsername)) {
-            return modifyUsername(baseUsername);
-        }
-
-        return baseUsername;
-    }
-
-    /**
-     * Generates a random n-digit number.
+     * Checks that the provided details are valid.
+     * Validates the first and last names, email, phone number, birthdate, and password.
      *
-     * @param n The number of digits.
-     * @return A random n-digit number.
+     * @param firstName   The first name of the user.
+     * @param lastName    The last name of the user.
+     * @param email       The email of the user.
+     * @param phoneNumber The phone number of the user.
+     * @param birthDate   The birthdate of the user.
+     * @param password    The password of the user.
+     * @throws PersonException If any of the details are invalid.
      */
-    private int generateRandomNDigitNumber(int n) {
-        Random random = new Random();
-        return random.nextInt(9 * ((int) Math.pow(10, n - 1)));
+    private void checkThatDetailsAreValid(String firstName, String lastName, String email,
+                                         String phoneNumber, LocalDate birthDate, String password) throws PersonException {
+        checkThatDetailsHaveValidFormat(firstName, lastName, email, phoneNumber, birthDate, password);
+        checkThatContactDetailsAreUnique(email, phoneNumber);
     }
 
     /**
-     * Checks that the provided details are valid.
-     * Validates the first and last names, email, phone number, birthdate, and password.
+     * Checks the format of the provided details without querying the database.
      *
      * @param firstName   The first name of the user.
      * @param lastName    The last name of the user.
@@ -268,14 +271,16 @@ public class PersonServiceImpl implements PersonService {
      * @param password    The password of the user.
      * @throws PersonException If any of the details are invalid.
      */
-    private void checkThatDetailsAreValid(String firstName, String lastName, String email,
-                                         String phoneNumber, LocalDate birthDate, String password) throws PersonException {
+    public void checkThatDetailsHaveValidFormat(String firstName, String lastName, String email,
+                                                String phoneNumber, LocalDate birthDate, String password) throws PersonException {
         checkThatNameIsValid(firstName, lastName);
-        checkThatContactDetailsAreValid(email, phoneNumber);
+        checkThatContactFormatIsValid(email, phoneNumber);
 
+        if (birthDate == null)
+            throw new PersonException("Birth date is missing.");
         if (Period.between(birthDate, LocalDate.now()).getYears() < 18)
             throw new PersonException("Only users 18 years old and older can sign up.");
-        if (doesNotConformRegex(password, "^[A-Za-z0-9]{1,20}$"))
+        if (doesNotConformRegex(password, PASSWORD_PATTERN))
             throw new PersonException("Password is not valid.");
     }
 
@@ -287,9 +292,9 @@ public class PersonServiceImpl implements PersonService {
      * @throws PersonException If either the first name or last name is invalid.
      */
     private void checkThatNameIsValid(String firstName, String lastName) throws PersonException{
-        if (doesNotConformRegex(firstName, "[a-zA-ZáčďéěíňóřšťůúýžÁČĎÉĚÍŇÓŘŠŤŮÚÝŽ ]++"))
+        if (doesNotConformRegex(firstName, NAME_PATTERN))
             throw new PersonException("First name is not valid");
-        if (doesNotConformRegex(lastName, "[a-zA-ZáčďéěíňóřšťůúýžÁČĎÉĚÍŇÓŘŠŤŮÚÝŽ ]++"))
+        if (doesNotConformRegex(lastName, NAME_PATTERN))
             throw new PersonException("Last name is not valid");
     }
 
@@ -301,12 +306,34 @@ public class PersonServiceImpl implements PersonService {
      * @throws PersonException If the email or phone number is invalid, or if an account with the same email or phone number already exists.
      */
     private void checkThatContactDetailsAreValid(String email, String phoneNumber) throws PersonException{
-        if (doesNotConformRegex(email, "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$"))
+        checkThatContactFormatIsValid(email, phoneNumber);
+        checkThatContactDetailsAreUnique(email, phoneNumber);
+    }
+
+    /**
+     * Checks the format of the provided contact details.
+     *
+     * @param email       The email of the user.
+     * @param phoneNumber The phone number of the user.
+     * @throws PersonException If the email or phone number is invalid.
+     */
+    private void checkThatContactFormatIsValid(String email, String phoneNumber) throws PersonException{
+        if (doesNotConformRegex(email, EMAIL_PATTERN))
             throw new PersonException("Email is not valid.");
+        if (doesNotConformRegex(phoneNumber, PHONE_NUMBER_PATTERN))
+            throw new PersonException("Phone number is not valid.");
+    }
+
+    /**
+     * Checks that no account uses the provided contact details yet.
+     *
+     * @param email       The email of the user.
+     * @param phoneNumber The phone number of the user.
+     * @throws PersonException If an account with the same email or phone number already exists.
+     */
+    private void checkThatContactDetailsAreUnique(String email, String phoneNumber) throws PersonException{
         if (personRepository.existsByEmail(email))
             throw new PersonException("Account with that email already exists.");
-        if (doesNotConformRegex(phoneNumber, "^\\+?\\d[\\d -]{1,50}\\d$"))
-            throw new PersonException("Phone number is not valid.");
         if (personRepository.existsByPhoneNumber(phoneNumber))
             throw new PersonException("Account with that phone number already exists.");
     }
@@ -0,0 +1,52 @@
+package cz.cvut.fel.ear.sis.service;
+
+import cz.cvut.fel.ear.sis.model.Parallel;
+import cz.cvut.fel.ear.sis.model.ParallelMembership;
+import cz.cvut.fel.ear.sis.repository.ParallelMembershipRepository;
+import cz.cvut.fel.ear.sis.repository.ParallelRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Seats in parallels, with capacity enforced by the database.
+ *
+ * Taking a seat locks the row of the parallel until the enrolling transaction ends and counts the students stored
+ * for it in parallel_student. Enrollments into one parallel are therefore serialized across all sis-service replicas,
+ * while enrollments into different parallels do not wait for each other. Both counts read only the parallel_student
+ * rows through {@link ParallelMembership}, never the student collection of the parallel. A full parallel is refused
+ * before its row is locked, so requests for it do not queue behind enrollments that can still succeed.
+ * A seat is given back simply by deleting the membership row.
+ */
+@Service
+public class SeatReservationService {
+
+    private final ParallelRepository parallelRepository;
+    private final ParallelMembershipRepository parallelMembershipRepository;
+
+    @Autowired
+    public SeatReservationService(ParallelRepository parallelRepository, ParallelMembershipRepository parallelMembershipRepository) {
+        this.parallelRepository = parallelRepository;
+        this.parallelMembershipRepository = parallelMembershipRepository;
+    }
+
+    /**
+     * Tries to take one seat in the given parallel. Must be called inside the transaction that stores the membership,
+     * the parallel stays locked until that transaction ends. Parallels should be reserved in the order of their IDs,
+     * so two transactions reserving the same parallels cannot deadlock.
+     *
+     * @param parallel The parallel to take a seat in.
+     * @return True if a seat is free, false if the parallel is full.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean tryReserve(Parallel parallel) {
+        if (parallelRepository.findRemainingCapacityById(parallel.getId()).orElse(0L) <= 0) {
+            return false;
+        }
+        int capacity = parallelRepository.lockById(parallel.getId())
+                .map(Parallel::getCapacity)
+                .orElse(0);
+        return parallelMembershipRepository.countByParallelId(parallel.getId()) < capacity;
+    }
+}
@@ -5,7 +5,6 @@ import cz.cvut.fel.ear.sis.model.*;
 import cz.cvut.fel.ear.sis.repository.*;
 import cz.cvut.fel.ear.sis.rest.dto.EnrollmentRequest;
 import cz.cvut.fel.ear.sis.service.interfaces.StudentService;
-import cz.cvut.fel.ear.sis.utils.enums.SemesterType;
 import cz.cvut.fel.ear.sis.utils.exception.EnrollmentException;
 import cz.cvut.fel.ear.sis.utils.exception.ParallelException;
 import cz.cvut.fel.ear.sis.utils.exception.SemesterException;
@@ -13,26 +12,41 @@ import cz.cvut.fel.ear.sis.utils.exception.StudentException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class StudentServiceImpl implements StudentService {
     private final StudentRepository studentRepository;
     private final ParallelRepository parallelRepository;
     private final AdminServiceImpl adminServiceImpl;
-    private final WebClient.Builder webClientBuilder;
-    private final SemesterRepository semesterRepository;
+    private final EnrollmentProjectionService enrollmentProjectionService;
+    private final ActiveSemesterHolder activeSemesterHolder;
+    private final SeatReservationService seatReservationService;
+    private final ParallelMembershipRepository parallelMembershipRepository;
+    private final EnrollmentOutboxService enrollmentOutboxService;
+    private final CourseCatalogCache courseCatalogCache;
+    private final TeacherServiceImpl teacherServiceImpl;
 
     @Autowired
-    public StudentServiceImpl(StudentRepository studentRepository, ParallelRepository parallelRepository, AdminServiceImpl adminServiceImpl, WebClient.Builder webClientBuilder, SemesterRepository semesterRepository) {
+    public StudentServiceImpl(StudentRepository studentRepository, ParallelRepository parallelRepository, AdminServiceImpl adminServiceImpl, EnrollmentProjectionService enrollmentProjectionService, ActiveSemesterHolder activeSemesterHolder, SeatReservationService seatReservationService, ParallelMembershipRepository parallelMembershipRepository, EnrollmentOutboxService enrollmentOutboxService, CourseCatalogCache courseCatalogCache, TeacherServiceImpl teacherServiceImpl) {
         this.studentRepository = studentRepository;
         this.parallelRepository = parallelRepository;
         this.adminServiceImpl = adminServiceImpl;
-        this.webClientBuilder = webClientBuilder;
-        this.semesterRepository = semesterRepository;
+        this.enrollmentProjectionService = enrollmentProjectionService;
+        this.activeSemesterHolder = activeSemesterHolder;
+        this.seatReservationService = seatReservationService;
+        this.parallelMembershipRepository = parallelMembershipRepository;
+        this.enrollmentOutboxService = enrollmentOutboxService;
+        this.courseCatalogCache = courseCatalogCache;
+        this.teacherServiceImpl = teacherServiceImpl;
     }
 
     /**
@@ -57,6 +71,32 @@ public class StudentServiceImpl implements StudentService {
         return parallelRepository.findAllBySemesterStartDate(currentSemesterStartDate);
     }
 
+    /**
+     * Retrieves the course catalog for the next semester, served from {@link CourseCatalogCache}.
+     *
+     * @return Catalog of the next semester.
+     * @throws SemesterException If the next semester is not found.
+     */
+    @Transactional(readOnly = true)
+    public CourseCatalogCache.Catalog getCourseCatalogForNextSemester() throws SemesterException {
+        Semester nextSemester = findNextSemester();
+        return courseCatalogCache.get(nextSemester.getCode(),
+                () -> teacherServiceImpl.mapParallelsToDto(parallelRepository.findAllBySemesterStartDate(nextSemester.getStartDate())));
+    }
+
+    /**
+     * Retrieves the course catalog for the current semester, served from {@link CourseCatalogCache}.
+     *
+     * @return Catalog of the current semester.
+     * @throws SemesterException If the active semester is not found.
+     */
+    @Transactional(readOnly = true)
+    public CourseCatalogCache.Catalog getCourseCatalogForCurrentSemester() throws SemesterException {
+        Semester activeSemester = adminServiceImpl.getActiveSemester().orElseThrow(()-> new SemesterException("Active semester not found"));
+        return courseCatalogCache.get(activeSemester.getCode(),
+                () -> teacherServiceImpl.mapParallelsToDto(parallelRepository.findAllBySemesterStartDate(activeSemester.getStartDate())));
+    }
+
     /**
      * Retrieves a list of all parallels for the next semester.
      *
@@ -100,29 +140,28 @@ public class StudentServiceImpl implements StudentService {
 
     /**
      * Retrieves an enrollment report for a student by username.
+     * The report is read from {@link EnrollmentProjectionService}, so it does not wait for enrollment-service.
      *
      * @param username The username of the student.
      * @return List of Enrollment objects for the student.
      */
     public List<EnrollmentDto> getEnrollmentReportByUsername(String username) {
-        return webClientBuilder.build().get()
-                .uri("http://enrollment-service:8081/enrollment/{username}", username)
-                .retrieve()
-                .bodyToFlux(EnrollmentDto.class)
-                .collectList()
-                .block();
+        return enrollmentProjectionService.getEnrollmentsByUsername(username);
     }
 
     /**
      * Enrolls a student in a parallel by username.
+     * A parallel of the same course the student is already enrolled in is dropped only after a seat in the new one
+     * is taken, and the whole switch rolls back when any step fails, so a student never loses the seat they had.
+     * The enrollment is sent to enrollment-service in the background through {@link EnrollmentOutboxService}.
      *
      * @param username   The username of the student to enroll.
      * @param parallelId The ID of the parallel to enroll in.
      * @throws StudentException   If the student is not found.
-     * @throws ParallelException  If the parallel is not found.
+     * @throws ParallelException  If the parallel is not found or full.
      * @throws EnrollmentException If enrollment details are not valid.
      */
-    @Transactional
+    @Transactional(rollbackFor = Exception.class)
     public void enrollToParallelByUsername(String username, Long parallelId) throws StudentException, ParallelException, EnrollmentException, SemesterException {
         Student student = studentRepository.findByUserName(username).orElseThrow(()-> new StudentException("Student not found"));
         Parallel parallel = parallelRepository.findById(parallelId).orElseThrow(()-> new ParallelException("Parallel not found"));
@@ -132,69 +171,148 @@ public class StudentServiceImpl implements StudentService {
 
         Parallel enrolledParallel = parallelRepository.findByStudentUsernameAndCourseId(username, course.getId());
 
+        if (!seatReservationService.tryReserve(parallel))
+            throw new ParallelException("Parallel is full");
+
         if (enrolledParallel != null) {
             dropFromParallelByUsername(username, enrolledParallel.getId());
         }
 
-        parallel.addStudent(student);
-        parallelRepository.save(parallel);
+        parallelMembershipRepository.save(new ParallelMembership(parallel.getId(), student.getId()));
+
+        EnrollmentRequest enrollmentRequest = new EnrollmentRequest(course.getCode(), parallel.getTeacherFullName(), null, parallel.getId(), parallel.getSemester().getCode());
+        enrollmentOutboxService.enqueueCreate(username, enrollmentRequest);
+    }
+
+    /**
+     * Enrolls a student in a whole schedule of parallels at once.
+     * All parallels are validated in one pass (semester, duplicate courses, time-slot collisions and capacity)
+     * and either all of them are enrolled in one transaction or none is. Parallels of the same courses the student
+     * is already enrolled in are replaced. The new enrollments are sent to enrollment-service as one batch.
+     *
+     * @param username    The username of the student to enroll.
+     * @param parallelIds The IDs of the parallels to enroll in.
+     * @throws StudentException    If the student is not found.
+     * @throws ParallelException   If a parallel is not found or full.
+     * @throws EnrollmentException If the schedule is not valid.
+     * @throws SemesterException   If the active semester is not found.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void enrollToParallelsByUsername(String username, List<Long> parallelIds) throws StudentException, ParallelException, EnrollmentException, SemesterException {
+        Set<Long> requestedIds = new LinkedHashSet<>(parallelIds);
+        if (requestedIds.isEmpty())
+            throw new EnrollmentException("No parallels to enroll in");
+
+        Student student = studentRepository.findByUserName(username).orElseThrow(()-> new StudentException("Student not found"));
+        List<Parallel> parallels = parallelRepository.findAllById(requestedIds);
+        if (parallels.size() != requestedIds.size())
+            throw new ParallelException("Parallel not found");
+
+        Semester activeSemester = adminServiceImpl.getActiveSemester().orElseThrow(()-> new SemesterException("Active semester not found"));
+        Map<Long, Parallel> parallelsByCourse = new HashMap<>();
+        for (Parallel parallel : parallels) {
+            checkEnrollmentWindow(parallel, activeSemester);
+            if (parallelsByCourse.putIfAbsent(parallel.getCourse().getId(), parallel) != null)
+                throw new EnrollmentException("Schedule contains more than one parallel of course " + parallel.getCourse().getCode());
+        }
+
+        List<Parallel> replacedParallels = new ArrayList<>();
+        List<Parallel> schedule = new ArrayList<>(parallels);
+        for (Parallel enrolled : parallelRepository.findAllByStudentsUsername(username)) {
+            if (requestedIds.contains(enrolled.getId()))
+                throw new EnrollmentException("Student is already enrolled in parallel " + enrolled.getId());
+            if (parallelsByCourse.containsKey(enrolled.getCourse().getId())) {
+                replacedParallels.add(enrolled);
+            } else {
+                schedule.add(enrolled);
+            }
+        }
+        checkTimeSlotCollisions(schedule);
+
+        for (Parallel parallel : parallels.stream().sorted(Comparator.comparing(Parallel::getId)).toList()) {
+            if (!seatReservationService.tryReserve(parallel))
+                throw new ParallelException("Parallel " + parallel.getId() + " is full");
+        }
 
-        EnrollmentRequest enrollmentRequest = new EnrollmentRequest(course.getCode(), parallel.getTeacherFullName(), null, parallel.getId());
+        for (Parallel replaced : replacedParallels) {
+            parallelMembershipRepository.deleteMembership(replaced.getId(), student.getId());
+            enrollmentOutboxService.enqueueDelete(username, replaced.getId());
+        }
+
+        List<ParallelMembership> memberships = new ArrayList<>();
+        List<EnrollmentRequest> enrollmentRequests = new ArrayList<>();
+        for (Parallel parallel : parallels) {
+            memberships.add(new ParallelMembership(parallel.getId(), student.getId()));
+            enrollmentRequests.add(new EnrollmentRequest(parallel.getCourse().getCode(), parallel.getTeacherFullName(), null, parallel.getId(), parallel.getSemester().getCode()));
+        }
+        parallelMembershipRepository.saveAll(memberships);
+        enrollmentOutboxService.enqueueCreateBatch(username, enrollmentRequests);
+    }
 
-        webClientBuilder.build().post()
-            .uri("http://enrollment-service:8081/enrollment/{username}", username)
-            .bodyValue(enrollmentRequest)
-            .header("Content-Type", "application/json")
-            .retrieve()
-            .toBodilessEntity()
-            .block();
+    /**
+     * Checks that no two parallels of a schedule take place in the same semester, day and time slot.
+     *
+     * @param schedule The parallels to check.
+     * @throws EnrollmentException If two parallels collide.
+     */
+    private void checkTimeSlotCollisions(List<Parallel> schedule) throws EnrollmentException {
+        Map<String, Parallel> occupiedSlots = new HashMap<>();
+        for (Parallel parallel : schedule) {
+            String slot = parallel.getSemester().getId() + ":" + parallel.getDayOfWeek() + ":" + parallel.getTimeSlot();
+            Parallel colliding = occupiedSlots.putIfAbsent(slot, parallel);
+            if (colliding != null)
+                throw new EnrollmentException("Parallel " + parallel.getId() + " collides with parallel " + colliding.getId()
+                        + " on " + parallel.getDayOfWeek() + " " + parallel.formatTimeSlot());
+        }
     }
 
     /**
      * Checks if the semester is valid for enrollment.
+     * Capacity is not checked here, seats are taken through {@link SeatReservationService}.
      *
      * @param parallel The parallel to check.
      * @param username The username of the student.
      * @throws SemesterException   If the active semester is not found.
      * @throws EnrollmentException If the semester is not valid for enrollment.
-     * @throws ParallelException   If the parallel is full.
      */
     public void checkValidSemester(Parallel parallel, String username) throws SemesterException, EnrollmentException, ParallelException {
         Semester activeSemester = adminServiceImpl.getActiveSemester().orElseThrow(()-> new SemesterException("Active semester not found"));
+        checkEnrollmentWindow(parallel, activeSemester);
+
+        if (parallelRepository.isStudentEnrolled(parallel.getId(), username)){
+            throw new EnrollmentException("Student is already enrolled in this parallel");
+        }
+    }
+
+    /**
+     * Checks that the parallel belongs to a semester students can currently enroll in.
+     *
+     * @param parallel       The parallel to check.
+     * @param activeSemester The active semester.
+     * @throws EnrollmentException If the parallel is outside the enrollment window.
+     */
+    private void checkEnrollmentWindow(Parallel parallel, Semester activeSemester) throws EnrollmentException {
         LocalDate semesterStartDate = activeSemester.getStartDate();
         LocalDate parallelStartDate = parallel.getSemester().getStartDate();
 
         if (parallelStartDate.isBefore(semesterStartDate) ||
                 parallelStartDate.isAfter(semesterStartDate.plusYears(1)))
             throw new EnrollmentException("Students can enroll only for the next semester");
-
-        if (parallel.getStudents().size() >= parallel.getCapacity())
-            throw new ParallelException("Parallel is full");
-
-        if (parallel.getStudents().stream().anyMatch(student -> student.getUserName().equals(username))){
-            throw new EnrollmentException("Student is already enrolled in this parallel");
-        }
     }
 
     /**
-     * Finds the next semester.
+     * Finds the next semester, resolved by {@link ActiveSemesterHolder}.
      * @return The next semester.
      * @throws SemesterException If the next semester is not found.
      */
     public Semester findNextSemester() throws SemesterException {
-        Semester activeSemester = semesterRepository.findSemesterByIsActiveIsTrue().orElseThrow(()-> new SemesterException("Active semester not found"));
-        Semester nextSemester;
-
-        if(activeSemester.getSemesterType().equals(SemesterType.SPRING))
-            nextSemester = semesterRepository.findSemesterByCode("FALL"+activeSemester.getStartDate().getYear()).orElseThrow(()-> new SemesterException("Next semester not found, tried to find FALL"+activeSemester.getStartDate().getYear()));
-        else
-            nextSemester = semesterRepository.findSemesterByCode("SPRING"+(activeSemester.getStartDate().getYear()+1)).orElseThrow(()-> new SemesterException("Next semester not found, tried to find SPRING"+activeSemester.getStartDate().getYear()+1));
-
-        return nextSemester;
+        Semester activeSemester = adminServiceImpl.getActiveSemester().orElseThrow(()-> new SemesterException("Active semester not found"));
+        return activeSemesterHolder.getNextSemester().orElseThrow(()-> new SemesterException("Next semester not found, tried to find " + ActiveSemesterHolder.nextSemesterCode(activeSemester)));
     }
 
     /**
      * Drops a student from a parallel by username.
+     * The enrollment is removed from enrollment-service in the background through {@link EnrollmentOutboxService}.
      *
      * @param username   The username of the student to drop.
      * @param parallelId The ID of the parallel to drop from.
@@ -206,17 +324,10 @@ public class StudentServiceImpl implements StudentService {
         Student student = studentRepository.findByUserName(username).orElseThrow(() -> new StudentException("Student not found"));
         Parallel parallel = parallelRepository.findById(parallelId).orElseThrow(() -> new ParallelException("Parallel not found"));
 
-        if (!parallel.getStudents().contains(student)) {
+        if (parallelMembershipRepository.deleteMembership(parallel.getId(), student.getId()) == 0) {
             throw new StudentException("Student is not enrolled in this parallel");
         }
 
-        parallel.removeStudent(student);
-        parallelRepository.save(parallel);
-
-        webClientBuilder.build().delete()
-                .uri("http://enrollment-service:8081/enrollment/{username}/{parallelId}", username, parallel.getId())
-                .retrieve()
-                .toBodilessEntity()
-                .block();
+        enrollmentOutboxService.enqueueDelete(username, parallel.getId());
     }
 }
@@ -3,6 +3,7 @@ package cz.cvut.fel.ear.sis.service;
 import cz.cvut.fel.ear.sis.dto.CourseDto;
 import cz.cvut.fel.ear.sis.dto.ParallelDto;
 import cz.cvut.fel.ear.sis.dto.PersonDto;
+import cz.cvut.fel.ear.sis.event.CatalogChangedEvent;
 import cz.cvut.fel.ear.sis.event.EnrollmentGradedEvent;
 import cz.cvut.fel.ear.sis.model.*;
 import cz.cvut.fel.ear.sis.repository.*;
@@ -11,10 +12,10 @@ import cz.cvut.fel.ear.sis.service.interfaces.TeacherService;
 import cz.cvut.fel.ear.sis.utils.enums.*;
 import cz.cvut.fel.ear.sis.utils.exception.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -22,6 +23,7 @@ import java.util.Locale;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import static cz.cvut.fel.ear.sis.utils.ServiceUtil.COURSE_NAME_PATTERN;
 import static cz.cvut.fel.ear.sis.utils.ServiceUtil.doesNotConformRegex;
 
 @Service
@@ -33,11 +35,12 @@ public class TeacherServiceImpl implements TeacherService {
     private final ParallelRepository parallelRepository;
     private final SemesterRepository semesterRepository;
     private final ClassroomRepository classroomRepository;
-    private final WebClient.Builder webClientBuilder;
+    private final EnrollmentOutboxService enrollmentOutboxService;
     private final KafkaTemplate<String, EnrollmentGradedEvent> kafkaTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public TeacherServiceImpl(StudentRepository studentRepository, TeacherRepository teacherRepository, CourseRepository courseRepository, AdminServiceImpl adminServiceImpl, ParallelRepository parallelRepository, SemesterRepository semesterRepository, ClassroomRepository classroomRepository, WebClient.Builder webClientBuilder, KafkaTemplate kafkaTemplate) {
+    public TeacherServiceImpl(StudentRepository studentRepository, TeacherRepository teacherRepository, CourseRepository courseRepository, AdminServiceImpl adminServiceImpl, ParallelRepository parallelRepository, SemesterRepository semesterRepository, ClassroomRepository classroomRepository, EnrollmentOutboxService enrollmentOutboxService, KafkaTemplate kafkaTemplate, ApplicationEventPublisher eventPublisher) {
         this.studentRepository = studentRepository;
         this.teacherRepository = teacherRepository;
         this.courseRepository = courseRepository;
@@ -45,8 +48,9 @@ public class TeacherServiceImpl implements TeacherService {
         this.parallelRepository = parallelRepository;
         this.semesterRepository = semesterRepository;
         this.classroomRepository = classroomRepository;
-        this.webClientBuilder = webClientBuilder;
+        this.enrollmentOutboxService = enrollmentOutboxService;
         this.kafkaTemplate = kafkaTemplate;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -141,7 +145,7 @@ public class TeacherServiceImpl implements TeacherService {
         if (teacher == null) {
             throw new PersonException("Teacher is not valid");
         }
-        if (courseName == null || doesNotConformRegex(courseName, "^[a-zA-ZáčďéěíňóřšťůúýžÁČĎÉĚÍŇÓŘŠŤŮÚÝŽ0-9\\s.,!?()-]{3,50}$")) {
+        if (courseName == null || doesNotConformRegex(courseName, COURSE_NAME_PATTERN)) {
             throw new CourseException("Course name is not valid");
         }
 
@@ -187,6 +191,7 @@ public class TeacherServiceImpl implements TeacherService {
         course.addParallel(parallel);
         parallelRepository.save(parallel);
         courseRepository.save(course);
+        eventPublisher.publishEvent(new CatalogChangedEvent(semester.getCode()));
 
         return parallel;
     }
@@ -260,10 +265,12 @@ public class TeacherServiceImpl implements TeacherService {
 
         courseRepository.save(course);
         teacherRepository.save(teacher);
+        eventPublisher.publishEvent(new CatalogChangedEvent(null));
     }
 
     /**
      * Grades a student based on the provided enrollment ID and grade.
+     * The grade is sent to enrollment-service in the background through {@link EnrollmentOutboxService}.
      *
      * @throws StudentException    If the student is not found or not valid.
      */
@@ -273,14 +280,7 @@ public class TeacherServiceImpl implements TeacherService {
         String teacherFullName = teacher.getFirstName() + " " + teacher.getLastName();
 
         enrollmentRequest.setTeacherName(teacherFullName);
-
-        webClientBuilder.build().post()
-                .uri("http://enrollment-service:8081/enrollment/grade/{studentUsername}", studentUsername)
-                .bodyValue(enrollmentRequest)
-                .header("Content-Type", "application/json")
-                .retrieve()
-                .toBodilessEntity()
-                .block();
+        enrollmentOutboxService.enqueueGrade(studentUsername, enrollmentRequest);
 
         EnrollmentGradedEvent enrollmentGradedEvent = new EnrollmentGradedEvent(studentUsername, teacherFullName, teacher.getMyCourses().get(0).getName(), enrollmentRequest.getGrade());
         kafkaTemplate.send("notificationTopic", enrollmentGradedEvent);
@@ -312,6 +312,7 @@ public class TeacherServiceImpl implements TeacherService {
                                Course course) throws ParallelException, SemesterException, ClassroomException {
 
         if (checkValidParallel(capacity, timeSlot, dayOfWeek, semester, classroom)) {
+            String oldSemesterCode = parallel.getSemester().getCode();
             Course oldCourse = parallel.getCourse();
             oldCourse.removeParallel(parallel);
 
@@ -328,6 +329,8 @@ public class TeacherServiceImpl implements TeacherService {
             parallelRepository.save(parallel);
             courseRepository.save(oldCourse);
             courseRepository.save(course);
+            eventPublisher.publishEvent(new CatalogChangedEvent(oldSemesterCode));
+            eventPublisher.publishEvent(new CatalogChangedEvent(semester.getCode()));
         }
     }
 
@@ -430,7 +433,7 @@ public class TeacherServiceImpl implements TeacherService {
      */
     @Transactional(readOnly = true)
     public List<Student> getAllStudentsByParallelId(Long id) throws ParallelException {
-        return parallelRepository.findById(id).orElseThrow(()-> new ParallelException("Parallel not found")).getStudents();
+        return new ArrayList<>(parallelRepository.findById(id).orElseThrow(()-> new ParallelException("Parallel not found")).getStudents());
     }
 
     /**
@@ -0,0 +1,100 @@
+package cz.cvut.fel.ear.sis.service;
+
+import cz.cvut.fel.ear.sis.repository.PersonRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Allocates unique usernames.
+ *
+ * A username is made of up to five letters of the last name followed by the first name, eight characters at most.
+ * When it is taken, its last character is replaced by the lowest free number. All usernames sharing the prefix
+ * are fetched with a single query, so the number of collisions does not add round trips to the database.
+ */
+@Service
+public class UsernameAllocator {
+
+    private static final int USERNAME_LENGTH = 8;
+    private static final int LAST_NAME_LENGTH = 5;
+
+    private final PersonRepository personRepository;
+
+    @Autowired
+    public UsernameAllocator(PersonRepository personRepository) {
+        this.personRepository = personRepository;
+    }
+
+    /**
+     * Allocates a username that is not used by any person.
+     *
+     * @param firstName The first name of the user.
+     * @param lastName  The last name of the user.
+     * @return A unique username.
+     */
+    public String allocate(String firstName, String lastName) {
+        String baseUsername = baseUsername(firstName, lastName);
+        String prefix = prefixOf(baseUsername);
+        return pickFree(baseUsername, prefix, new HashSet<>(personRepository.findUserNamesStartingWith(prefix)));
+    }
+
+    /**
+     * Starts a session for allocating many usernames before any of them is stored, e.g. during a bulk import.
+     * The usernames of every prefix are fetched once per session and the ones handed out are remembered.
+     *
+     * @return A new allocation session.
+     */
+    public Session newSession() {
+        return new Session();
+    }
+
+    public class Session {
+        private final Map<String, Set<String>> takenByPrefix = new HashMap<>();
+
+        private Session() {
+        }
+
+        /**
+         * Allocates a username that is not used by any person nor handed out earlier in this session.
+         *
+         * @param firstName The first name of the user.
+         * @param lastName  The last name of the user.
+         * @return A unique username.
+         */
+        public String allocate(String firstName, String lastName) {
+            String baseUsername = baseUsername(firstName, lastName);
+            String prefix = prefixOf(baseUsername);
+            Set<String> taken = takenByPrefix.computeIfAbsent(prefix, p -> new HashSet<>(personRepository.findUserNamesStartingWith(p)));
+            String username = pickFree(baseUsername, prefix, taken);
+            taken.add(username);
+            return username;
+        }
+    }
+
+    private static String pickFree(String baseUsername, String prefix, Set<String> taken) {
+        if (!taken.contains(baseUsername)) {
+            return baseUsername;
+        }
+        int suffix = 1;
+        while (taken.contains(prefix + suffix)) {
+            suffix++;
+        }
+        return prefix + suffix;
+    }
+
+    private static String prefixOf(String baseUsername) {
+        return baseUsername.length() > 1 ? baseUsername.substring(0, baseUsername.length() - 1) : baseUsername;
+    }
+
+    private static String baseUsername(String firstName, String lastName) {
+        firstName = firstName.replace(" ", "");
+        lastName = lastName.replace(" ", "");
+
+        String username = lastName.substring(0, Math.min(LAST_NAME_LENGTH, lastName.length()));
+        return username + firstName.substring(0, Math.min(USERNAME_LENGTH - username.length(), firstName.length()));
+    }
+}
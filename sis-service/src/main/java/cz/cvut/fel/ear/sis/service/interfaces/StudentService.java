@@ -21,6 +21,8 @@ public interface StudentService {
 
     void enrollToParallelByUsername(String username, Long parallelId) throws StudentException, ParallelException, EnrollmentException, SemesterException;
 
+    void enrollToParallelsByUsername(String username, List<Long> parallelIds) throws StudentException, ParallelException, EnrollmentException, SemesterException;
+
     Semester findNextSemester() throws SemesterException;
 
     void dropFromParallelByUsername(String username, Long parallelId) throws StudentException, ParallelException;
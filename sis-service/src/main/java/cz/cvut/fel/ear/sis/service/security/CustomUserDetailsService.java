@@ -1,39 +1,175 @@
 package cz.cvut.fel.ear.sis.service.security;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import cz.cvut.fel.ear.sis.event.CredentialsChangedEvent;
 import cz.cvut.fel.ear.sis.model.Person;
 import cz.cvut.fel.ear.sis.repository.PersonRepository;
-import cz.cvut.fel.ear.sis.security.model.CustomUserDetails;
 
-import org.springframework.security.core.GrantedAuthority;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.apache.kafka.common.KafkaException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Loads login credentials of people, keeping recently used ones in a bounded cache with a time to live.
+ *
+ * The cache holds the username, password hash and role rather than {@link UserDetails}, because Spring Security
+ * erases the password of the returned object after a successful login. Entries are evicted after a
+ * {@link CredentialsChangedEvent} commits, credentials loaded while an eviction happened are not stored.
+ * The change is broadcast on credentialsTopic, every sis-service replica listens with its own consumer group and
+ * evicts the same entry, so an old username or password stops working on all replicas, not only on the one that
+ * changed it. Only while the broadcast is down does an entry on another replica live until its time to live ends.
+ * Unknown usernames are never cached.
+ *
+ * Passwords hashed with an outdated cost factor are replaced with a fresh hash when their owner logs in.
+ */
 @Service
-public class CustomUserDetailsService implements org.springframework.security.core.userdetails.UserDetailsService {
+public class CustomUserDetailsService implements org.springframework.security.core.userdetails.UserDetailsService, UserDetailsPasswordService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomUserDetailsService.class);
+    private static final String CREDENTIALS_TOPIC = "credentialsTopic";
 
     private final PersonRepository personRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final KafkaTemplate<String, CredentialsChangedEvent> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Credentials> credentialsCache;
+    private final AtomicLong generation = new AtomicLong();
 
     @Autowired
-    public CustomUserDetailsService(PersonRepository personRepository) {
+    public CustomUserDetailsService(PersonRepository personRepository,
+                                    ApplicationEventPublisher eventPublisher,
+                                    MeterRegistry meterRegistry,
+                                    KafkaTemplate kafkaTemplate,
+                                    ObjectMapper objectMapper,
+                                    @Value("${sis.auth.cache.max-size:10000}") long maxSize,
+                                    @Value("${sis.auth.cache.ttl-seconds:300}") long ttlSeconds) {
         this.personRepository = personRepository;
+        this.eventPublisher = eventPublisher;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.credentialsCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, credentialsCache, "userDetails");
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        Credentials credentials = credentialsCache.getIfPresent(username);
+        if (credentials == null) {
+            credentials = loadCredentials(username);
+        }
+        return User.withUsername(credentials.userName())
+                .password(credentials.password())
+                .authorities(new SimpleGrantedAuthority(credentials.role()))
+                .build();
+    }
+
+    /**
+     * Stores a new password hash of a person, called after a login with a hash that needs an upgrade.
+     *
+     * @param user        The logged in user.
+     * @param newPassword The new password hash.
+     * @return The user with the new password hash.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Person person = personRepository.findByUserName(user.getUsername());
+        if (person == null) {
+            throw new UsernameNotFoundException("User with username " + user.getUsername() + " not found.");
+        }
+        person.setPassword(newPassword);
+        personRepository.save(person);
+        eventPublisher.publishEvent(new CredentialsChangedEvent(person.getUserName()));
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+
+    /**
+     * Evicts the cached credentials once the transaction that changed them commits and tells the other replicas to do
+     * the same.
+     *
+     * @param event The change of the credentials.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCredentialsChanged(CredentialsChangedEvent event) {
+        evict(event.getUserName());
+        try {
+            kafkaTemplate.send(CREDENTIALS_TOPIC, event).whenComplete((result, e) -> {
+                if (e != null) {
+                    logger.warn("Credentials change of {} could not be broadcast to other replicas", event.getUserName(), e);
+                }
+            });
+        } catch (KafkaException e) {
+            logger.warn("Credentials change of {} could not be broadcast to other replicas", event.getUserName(), e);
+        }
+    }
+
+    /**
+     * Evicts the cached credentials when another replica changed them. An unreadable change evicts every entry.
+     */
+    @KafkaListener(topics = CREDENTIALS_TOPIC,
+            groupId = "sis-credentials-#{T(java.util.UUID).randomUUID()}",
+            properties = {
+                    "key.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "value.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "auto.offset.reset=latest"
+            })
+    public void onRemoteCredentialsChanged(String message) {
+        String userName;
+        try {
+            userName = objectMapper.readValue(message, CredentialsChangedEvent.class).getUserName();
+        } catch (JsonProcessingException e) {
+            logger.warn("Evicting all cached credentials after unreadable remote change {}", message, e);
+            userName = null;
+        }
+        evict(userName);
+    }
+
+    private void evict(String userName) {
+        generation.incrementAndGet();
+        if (userName == null) {
+            credentialsCache.invalidateAll();
+        } else {
+            credentialsCache.invalidate(userName);
+        }
+    }
+
+    private Credentials loadCredentials(String username) {
+        long loadedGeneration = generation.get();
         final Person user = personRepository.findByUserName(username);
         if (user == null) {
             throw new UsernameNotFoundException("User with username " + username + " not found.");
         }
-        Set<GrantedAuthority> authorities = new HashSet<>();
-        authorities.add(new SimpleGrantedAuthority(user.getRole()));
-        UserDetails customUserDetail = User.withUsername(user.getUserName()).password(user.getPassword()).authorities(authorities).build();
-        return customUserDetail;
+        Credentials loaded = new Credentials(user.getUserName(), user.getPassword(), user.getRole());
+        credentialsCache.asMap().compute(username, (key, current) -> generation.get() == loadedGeneration ? loaded : current);
+        return loaded;
+    }
+
+    private record Credentials(String userName, String password, String role) {
     }
 }
@@ -0,0 +1,163 @@
+package cz.cvut.fel.ear.sis.service.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt password encoder that hashes on a bounded pool of dedicated threads.
+ *
+ * At most sis.password.hashing-threads hashes run at once and at most sis.password.queue-capacity wait for a thread,
+ * so a burst of logins cannot take every CPU away from other requests. A call that does not fit into the queue,
+ * or waits longer than sis.password.timeout-ms, fails instead of piling up.
+ *
+ * The cost factor is taken from sis.password.bcrypt.strength. When it is 0, the highest cost whose hash takes at most
+ * sis.password.bcrypt.target-ms on this machine is picked at startup. Hashes made with a lower cost are reported by
+ * {@link #upgradeEncoding(String)}, so they are rehashed the next time their owner logs in.
+ */
+@Service
+public class PasswordHashingService implements PasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private static final int MIN_STRENGTH = 10;
+    private static final int MAX_STRENGTH = 16;
+    private static final String CALIBRATION_PASSWORD = "calibration";
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    @Autowired
+    public PasswordHashingService(MeterRegistry meterRegistry,
+                                  @Value("${sis.password.bcrypt.strength:0}") int strength,
+                                  @Value("${sis.password.bcrypt.target-ms:250}") long targetMs,
+                                  @Value("${sis.password.hashing-threads:2}") int hashingThreads,
+                                  @Value("${sis.password.queue-capacity:200}") int queueCapacity,
+                                  @Value("${sis.password.timeout-ms:5000}") long timeoutMs) {
+        int cost = strength > 0 ? strength : calibrate(targetMs);
+        this.encoder = new BCryptPasswordEncoder(cost);
+        this.timeoutMs = timeoutMs;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(hashingThreads, hashingThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("sis.password.hashing").tag("operation", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("sis.password.hashing").tag("operation", "matches").register(meterRegistry);
+        Gauge.builder("sis.password.hashing.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("sis.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        Gauge.builder("sis.password.bcrypt.strength", () -> cost).register(meterRegistry);
+        logger.info("Hashing passwords with BCrypt cost {} on {} threads", cost, hashingThreads);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        try {
+            return submit(encodeTimer, () -> encoder.encode(rawPassword));
+        } catch (RejectedExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Password hashing is overloaded, try again later", e);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        try {
+            return submit(matchesTimer, () -> encoder.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException | TimeoutException e) {
+            throw new AuthenticationServiceException("Too many logins at once, try again later", e);
+        }
+    }
+
+    /**
+     * Reports hashes made with a lower cost factor than the current one.
+     *
+     * @param encodedPassword The stored hash.
+     * @return True if the hash should be replaced.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return encoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Retrieves the BCrypt encoder with the current cost factor, hashing on the calling thread.
+     * Meant for callers that bound their own concurrency, such as the bulk import, so they do not take
+     * the pool away from logins.
+     *
+     * @return The BCrypt encoder without the pool.
+     */
+    public PasswordEncoder unpooled() {
+        return encoder;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T submit(Timer timer, Callable<T> hashing) throws TimeoutException {
+        Future<T> future = executor.submit(() -> timer.recordCallable(hashing));
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Finds the highest cost factor whose hash takes at most the target time.
+     * Each step of the cost doubles the hashing time, so only the lowest cost is measured.
+     */
+    private static int calibrate(long targetMs) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_STRENGTH);
+        probe.encode(CALIBRATION_PASSWORD);
+        long start = System.nanoTime();
+        probe.encode(CALIBRATION_PASSWORD);
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        int cost = MIN_STRENGTH;
+        while (cost < MAX_STRENGTH && elapsedMs * 2 <= targetMs) {
+            cost++;
+            elapsedMs *= 2;
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,114 @@
+package cz.cvut.fel.ear.sis.service.security;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Issues and verifies signed access tokens, active when sis.security.mode is token.
+ *
+ * Tokens are HMAC-SHA256 signed JWTs carrying the username and roles, so every replica sharing
+ * sis.security.token.secret verifies them locally without a session or a database query. A token stays valid until
+ * it expires, changes of the username or role take effect with the next login. The secret has no default, the
+ * application does not start in token mode until a secret is provided, e.g. through SIS_TOKEN_SECRET.
+ */
+@Service
+@ConditionalOnProperty(name = "sis.security.mode", havingValue = "token")
+public class TokenService {
+
+    private static final String ROLES_CLAIM = "roles";
+    private static final int MIN_SECRET_LENGTH = 32;
+    private static final String PLACEHOLDER_PREFIX = "change-me";
+
+    private final JwtEncoder encoder;
+    private final NimbusJwtDecoder decoder;
+    private final String issuer;
+    private final Duration timeToLive;
+
+    @Autowired
+    public TokenService(@Value("${sis.security.token.secret:}") String secret,
+                        @Value("${sis.security.token.issuer:sis-service}") String issuer,
+                        @Value("${sis.security.token.ttl-seconds:3600}") long ttlSeconds) {
+        if (secret == null || secret.isBlank() || secret.startsWith(PLACEHOLDER_PREFIX)) {
+            throw new IllegalStateException("sis.security.token.secret must be set to a private secret in token mode");
+        }
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < MIN_SECRET_LENGTH) {
+            throw new IllegalStateException("sis.security.token.secret must be at least " + MIN_SECRET_LENGTH + " bytes long");
+        }
+        SecretKey key = new SecretKeySpec(secretBytes, "HmacSHA256");
+        this.encoder = new NimbusJwtEncoder(new ImmutableSecret<>(key));
+        this.decoder = NimbusJwtDecoder.withSecretKey(key).macAlgorithm(MacAlgorithm.HS256).build();
+        this.decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(new JwtTimestampValidator(), new JwtIssuerValidator(issuer)));
+        this.issuer = issuer;
+        this.timeToLive = Duration.ofSeconds(ttlSeconds);
+    }
+
+    /**
+     * Issues a token for an authenticated user.
+     *
+     * @param authentication The successful authentication.
+     * @return The signed token.
+     */
+    public String issue(Authentication authentication) {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(issuer)
+                .subject(authentication.getName())
+                .issuedAt(now)
+                .expiresAt(now.plus(timeToLive))
+                .claim(ROLES_CLAIM, authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList())
+                .build();
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).build();
+        return encoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
+    }
+
+    /**
+     * Retrieves the decoder verifying the signature, issuer and expiry of tokens.
+     *
+     * @return The token decoder.
+     */
+    public JwtDecoder getDecoder() {
+        return decoder;
+    }
+
+    /**
+     * Converts a verified token to an authentication whose principal is a {@link User}, the same as after a form login.
+     *
+     * @param jwt The verified token.
+     * @return The authentication of the token owner.
+     */
+    public UsernamePasswordAuthenticationToken toAuthentication(Jwt jwt) {
+        List<String> roles = jwt.getClaimAsStringList(ROLES_CLAIM);
+        List<SimpleGrantedAuthority> authorities = roles == null ? List.of()
+                : roles.stream().map(SimpleGrantedAuthority::new).toList();
+        User user = new User(jwt.getSubject(), "", authorities);
+        return UsernamePasswordAuthenticationToken.authenticated(user, jwt, authorities);
+    }
+}
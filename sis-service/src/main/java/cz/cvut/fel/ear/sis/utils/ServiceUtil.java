@@ -1,9 +1,16 @@
 package cz.cvut.fel.ear.sis.utils;
 
+import java.util.regex.Pattern;
+
 public class ServiceUtil {
-    public static boolean doesNotConformRegex(String input, String regexPattern) {
-        return input == null || !input.matches(regexPattern);
+    public static final Pattern NAME_PATTERN = Pattern.compile("[a-zA-ZáčďéěíňóřšťůúýžÁČĎÉĚÍŇÓŘŠŤŮÚÝŽ ]++");
+    public static final Pattern EMAIL_PATTERN = Pattern.compile("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$");
+    public static final Pattern PHONE_NUMBER_PATTERN = Pattern.compile("^\\+?\\d[\\d -]{1,50}\\d$");
+    public static final Pattern PASSWORD_PATTERN = Pattern.compile("^[A-Za-z0-9]{1,20}$");
+    public static final Pattern COURSE_NAME_PATTERN = Pattern.compile("^[a-zA-ZáčďéěíňóřšťůúýžÁČĎÉĚÍŇÓŘŠŤŮÚÝŽ0-9\\s.,!?()-]{3,50}$");
+
+    public static boolean doesNotConformRegex(String input, Pattern pattern) {
+        return input == null || !pattern.matcher(input).matches();
     }
 
 }
-
@@ -0,0 +1,7 @@
+package cz.cvut.fel.ear.sis.utils.enums;
+
+public enum EnrollmentChangeType {
+    CREATED,
+    GRADED,
+    DELETED
+}
@@ -0,0 +1,8 @@
+package cz.cvut.fel.ear.sis.utils.enums;
+
+public enum OutboxOperation {
+    CREATE_ENROLLMENT,
+    CREATE_ENROLLMENT_BATCH,
+    GRADE_ENROLLMENT,
+    DELETE_ENROLLMENT
+}